@@ -0,0 +1,250 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common;
+
+import com.buschmais.javaspektrum.geneticalgorithms.common.distributed.DistributedEvaluator;
+import com.buschmais.javaspektrum.geneticalgorithms.common.distributed.EvaluationWorker;
+import com.buschmais.javaspektrum.geneticalgorithms.common.distributed.LocalWorkers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Dispatches the command line arguments of the examples to the modes they run in. A mode is selected by its name, which
+ * may consist of several words, and accepts a range of further arguments. The default mode runs without arguments, all
+ * arguments not matching any mode print the usage and exit.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class CommandLine {
+
+    /**
+     * The port of the first worker started by the <code>local</code> mode
+     */
+    private static final int LOCAL_BASE_PORT = 47000;
+
+    /**
+     * Runs a mode
+     */
+    @FunctionalInterface
+    public interface Mode {
+
+        /**
+         * Runs the mode
+         *
+         * @param args The arguments following the name of the mode
+         *
+         * @throws IOException If the mode fails to communicate
+         */
+        void run(String[] args) throws IOException;
+    }
+
+    /**
+     * Runs a mode evaluating the fitness on workers
+     */
+    @FunctionalInterface
+    public interface DistributedMode {
+
+        /**
+         * Runs the mode
+         *
+         * @param workers       The addresses of the workers
+         * @param timeoutMillis The time in milliseconds after which a worker not answering is considered to be failed
+         *
+         * @throws IOException If none of the workers is reachable
+         */
+        void run(List<InetSocketAddress> workers, long timeoutMillis) throws IOException;
+    }
+
+    /**
+     * A mode with its name and the number of further arguments it accepts
+     */
+    private static class Entry {
+
+        /**
+         * The words of the name
+         */
+        private final String[] name;
+
+        /**
+         * Describes the further arguments in the usage
+         */
+        private final String parameters;
+
+        /**
+         * The minimum number of further arguments
+         */
+        private final int minArgs;
+
+        /**
+         * The maximum number of further arguments
+         */
+        private final int maxArgs;
+
+        /**
+         * Runs the mode
+         */
+        private final Mode mode;
+
+        /**
+         * Creates an entry
+         *
+         * @param name       The name of the mode, words separated by blanks
+         * @param parameters Describes the further arguments in the usage
+         * @param minArgs    The minimum number of further arguments
+         * @param maxArgs    The maximum number of further arguments
+         * @param mode       Runs the mode
+         */
+        private Entry(String name, String parameters, int minArgs, int maxArgs, Mode mode) {
+            this.name = name.split(" ");
+            this.parameters = parameters;
+            this.minArgs = minArgs;
+            this.maxArgs = maxArgs;
+            this.mode = mode;
+        }
+
+        /**
+         * Checks whether the arguments select this mode
+         *
+         * @param args The arguments
+         *
+         * @return Whether the name matches and the number of further arguments is accepted
+         */
+        private boolean matches(String[] args) {
+            int further = args.length - this.name.length;
+            return further >= this.minArgs && further <= this.maxArgs
+                    && Arrays.equals(this.name, Arrays.copyOf(args, this.name.length));
+        }
+
+        /**
+         * Describes the mode in the usage
+         *
+         * @return The name followed by the parameters
+         */
+        private String usage() {
+            return String.join(" ", this.name) + (this.parameters.isEmpty() ? "" : " " + this.parameters);
+        }
+    }
+
+    /**
+     * The name of the program shown by the usage
+     */
+    private final String program;
+
+    /**
+     * Runs the default mode
+     */
+    private final Mode defaultMode;
+
+    /**
+     * The modes in the order of the usage
+     */
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Creates a command line
+     *
+     * @param program     The name of the program shown by the usage
+     * @param defaultMode Runs the default mode, selected if there are no arguments
+     */
+    public CommandLine(String program, Mode defaultMode) {
+        this.program = program;
+        this.defaultMode = defaultMode;
+    }
+
+    /**
+     * Adds a mode without further arguments
+     *
+     * @param name The name of the mode, words separated by blanks
+     * @param mode Runs the mode
+     *
+     * @return This command line
+     */
+    public CommandLine mode(String name, Mode mode) {
+        return mode(name, "", 0, 0, mode);
+    }
+
+    /**
+     * Adds a mode
+     *
+     * @param name       The name of the mode, words separated by blanks
+     * @param parameters Describes the further arguments in the usage
+     * @param minArgs    The minimum number of further arguments
+     * @param maxArgs    The maximum number of further arguments
+     * @param mode       Runs the mode
+     *
+     * @return This command line
+     */
+    public CommandLine mode(String name, String parameters, int minArgs, int maxArgs, Mode mode) {
+        this.entries.add(new Entry(name, parameters, minArgs, maxArgs, mode));
+        return this;
+    }
+
+    /**
+     * Adds the modes of the distributed evaluation:
+     * <ul>
+     * <li><code>worker &lt;port&gt;</code> serves fitness evaluations on the given port</li>
+     * <li><code>master &lt;host:port&gt;[,&lt;host:port&gt;...] [&lt;timeout&gt;]</code> evaluates the fitness on the given
+     * workers, a worker not answering within the timeout in seconds (default 60) is considered to be failed</li>
+     * <li><code>local &lt;count&gt; [&lt;timeout&gt;]</code> starts the given number of workers on this host and evaluates
+     * the fitness on them</li>
+     * </ul>
+     *
+     * @param mainClass  The main class started by the <code>local</code> mode for every worker
+     * @param objectives Computes the objective values of the alleles sent to a worker
+     * @param mode       Runs the master with the addresses of the workers
+     *
+     * @return This command line
+     */
+    public CommandLine distributed(Class<?> mainClass, Function<int[], double[]> objectives, DistributedMode mode) {
+        mode("worker", "<port>", 1, 1, a -> new EvaluationWorker(objectives).serve(Integer.parseInt(a[0])));
+        mode("master", "<host:port>[,<host:port>...] [<timeout>]", 1, 2, a -> {
+            List<InetSocketAddress> addresses = Arrays.stream(a[0].split(","))
+                    .map(w -> new InetSocketAddress(w.substring(0, w.lastIndexOf(':')), Integer.parseInt(w.substring(w.lastIndexOf(':') + 1))))
+                    .collect(Collectors.toList());
+            mode.run(addresses, timeoutMillis(a));
+        });
+        return mode("local", "<count> [<timeout>]", 1, 2, a -> {
+            try (LocalWorkers workers = new LocalWorkers(mainClass, Integer.parseInt(a[0]), LOCAL_BASE_PORT)) {
+                mode.run(workers.getAddresses(), timeoutMillis(a));
+            }
+        });
+    }
+
+    /**
+     * Runs the mode selected by the arguments, prints the usage and exits if there is none
+     *
+     * @param args The arguments
+     *
+     * @throws IOException If the mode fails to communicate
+     */
+    public void run(String[] args) throws IOException {
+        if (args.length == 0) {
+            this.defaultMode.run(args);
+            return;
+        }
+        for (Entry entry : this.entries) {
+            if (entry.matches(args)) {
+                entry.mode.run(Arrays.copyOfRange(args, entry.name.length, args.length));
+                return;
+            }
+        }
+        System.err.println("Usage: " + this.program + " ["
+                + this.entries.stream().map(Entry::usage).collect(Collectors.joining(" | ")) + "]");
+        System.exit(1);
+    }
+
+    /**
+     * Returns the worker timeout given as second argument of a distributed mode in seconds
+     *
+     * @param args The arguments of the mode
+     *
+     * @return The timeout in milliseconds, {@link DistributedEvaluator#DEFAULT_TIMEOUT_MILLIS} if not given
+     */
+    private static long timeoutMillis(String[] args) {
+        return args.length > 1 ? Long.parseLong(args[1]) * 1000 : DistributedEvaluator.DEFAULT_TIMEOUT_MILLIS;
+    }
+}
@@ -0,0 +1,285 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.adaptive;
+
+import io.jenetics.Alterer;
+import io.jenetics.AltererResult;
+import io.jenetics.Gene;
+import io.jenetics.Genotype;
+import io.jenetics.Optimize;
+import io.jenetics.Phenotype;
+import io.jenetics.util.Seq;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleFunction;
+import java.util.function.Function;
+
+/**
+ * Alterer for Jenetics engines which adapts the probabilities of a crossover and a mutator during the run instead of
+ * using fixed ones.
+ * <p>
+ * The mutation probability follows the 1/5 success rule: an offspring is successful if its fitness is better than the
+ * fitness of the individual it replaced in the population. If less than a fifth of the offspring of a generation is
+ * successful, or if the population has lost its diversity, the probability is increased to explore more, otherwise it
+ * is decreased to preserve good solutions. The diversity is the fraction of distinct genotypes in the population. The
+ * crossover probability is lowered as the diversity falls below the minimum, as recombining equal individuals only
+ * creates clones which have to be evaluated again.
+ * <p>
+ * The fitness function of the engine must be wrapped by {@link #fitness(Function)}, otherwise the success of the
+ * offspring is unknown and only the diversity is taken into account.
+ *
+ * @param <G> The gene type
+ * @param <C> The fitness type
+ *
+ * @author Stephan Pirnbaum
+ */
+public class AdaptiveAlterer<G extends Gene<?, G>, C extends Comparable<? super C>> implements Alterer<G, C> {
+
+    /**
+     * The ratio of successful offspring the mutation probability is adapted to
+     */
+    private static final double SUCCESS_RATIO = 0.2;
+
+    /**
+     * Creates the crossover for a probability
+     */
+    private final DoubleFunction<Alterer<G, C>> crossover;
+
+    /**
+     * Creates the mutator for a probability
+     */
+    private final DoubleFunction<Alterer<G, C>> mutator;
+
+    /**
+     * The optimization direction of the engine
+     */
+    private final Optimize optimize;
+
+    /**
+     * The crossover probability used as long as the population is diverse
+     */
+    private final double crossoverProbability;
+
+    /**
+     * The minimum mutation probability
+     */
+    private double minMutationProbability = 0.001;
+
+    /**
+     * The maximum mutation probability
+     */
+    private double maxMutationProbability = 0.2;
+
+    /**
+     * The factor the mutation probability is increased by, it is decreased by its fourth root
+     */
+    private double factor = 1.1;
+
+    /**
+     * The fraction of distinct genotypes below which the population is considered to have lost its diversity
+     */
+    private double minDiversity = 0.2;
+
+    /**
+     * The current mutation probability
+     */
+    private volatile double mutationProbability;
+
+    /**
+     * The current crossover probability
+     */
+    private volatile double currentCrossoverProbability;
+
+    /**
+     * The ratio of successful offspring of the last evaluated generation
+     */
+    private volatile double successRatio = Double.NaN;
+
+    /**
+     * The diversity of the last altered population
+     */
+    private volatile double diversity = Double.NaN;
+
+    /**
+     * The fitness of the replaced individuals by the genotypes of the offspring of the current generation
+     */
+    private final Map<Genotype<G>, C> replaced = new ConcurrentHashMap<>();
+
+    /**
+     * The number of evaluated offspring of the current generation
+     */
+    private final LongAdder trials = new LongAdder();
+
+    /**
+     * The number of successful offspring of the current generation
+     */
+    private final LongAdder successes = new LongAdder();
+
+    /**
+     * Creates the alterer
+     *
+     * @param crossover            Creates the crossover for a probability, e.g. <code>SinglePointCrossover::new</code>
+     * @param mutator              Creates the mutator for a probability, e.g. <code>Mutator::new</code>
+     * @param optimize             The optimization direction of the engine
+     * @param crossoverProbability The crossover probability used as long as the population is diverse
+     * @param mutationProbability  The initial mutation probability
+     */
+    public AdaptiveAlterer(DoubleFunction<Alterer<G, C>> crossover, DoubleFunction<Alterer<G, C>> mutator, Optimize optimize,
+                           double crossoverProbability, double mutationProbability) {
+        this.crossover = crossover;
+        this.mutator = mutator;
+        this.optimize = optimize;
+        this.crossoverProbability = crossoverProbability;
+        this.currentCrossoverProbability = crossoverProbability;
+        this.mutationProbability = mutationProbability;
+    }
+
+    /**
+     * Sets the range of the mutation probability, 0.001 to 0.2 by default
+     *
+     * @param min The minimum mutation probability
+     * @param max The maximum mutation probability
+     *
+     * @return This alterer
+     */
+    public AdaptiveAlterer<G, C> mutationBounds(double min, double max) {
+        this.minMutationProbability = min;
+        this.maxMutationProbability = max;
+        return this;
+    }
+
+    /**
+     * Sets the factor the mutation probability is increased by, 1.1 by default
+     *
+     * @param factor The factor, greater than 1
+     *
+     * @return This alterer
+     */
+    public AdaptiveAlterer<G, C> factor(double factor) {
+        this.factor = factor;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of distinct genotypes below which the population is considered to have lost its diversity, 0.2
+     * by default
+     *
+     * @param minDiversity The minimum diversity
+     *
+     * @return This alterer
+     */
+    public AdaptiveAlterer<G, C> minDiversity(double minDiversity) {
+        this.minDiversity = minDiversity;
+        return this;
+    }
+
+    /**
+     * Wraps the fitness function of the engine so that the success of the offspring is recorded
+     *
+     * @param fitness The fitness function
+     *
+     * @return The wrapping fitness function
+     */
+    public Function<Genotype<G>, C> fitness(Function<Genotype<G>, C> fitness) {
+        return genotype -> {
+            C value = fitness.apply(genotype);
+            C previous = this.replaced.remove(genotype);
+            if (previous != null) {
+                this.trials.increment();
+                if (this.optimize.compare(value, previous) > 0) {
+                    this.successes.increment();
+                }
+            }
+            return value;
+        };
+    }
+
+    @Override
+    public AltererResult<G, C> alter(Seq<Phenotype<G, C>> population, long generation) {
+        adapt(population);
+        this.replaced.clear();
+        AltererResult<G, C> crossed = this.crossover.apply(this.currentCrossoverProbability).alter(population, generation);
+        AltererResult<G, C> mutated = this.mutator.apply(this.mutationProbability).alter(crossed.getPopulation(), generation);
+        /*
+         * The alterers replace the individuals in place, so the offspring at an index replaced the individual at the same
+         * index of the evaluated population
+         */
+        Seq<Phenotype<G, C>> offspring = mutated.getPopulation();
+        for (int i = 0; i < offspring.size(); i++) {
+            Phenotype<G, C> phenotype = offspring.get(i);
+            if (phenotype.getGeneration() == generation && population.get(i).getGeneration() != generation) {
+                this.replaced.putIfAbsent(phenotype.getGenotype(), population.get(i).getFitness());
+            }
+        }
+        return AltererResult.of(mutated.getPopulation(), crossed.getAlterations() + mutated.getAlterations());
+    }
+
+    /**
+     * Adapts the probabilities to the success of the offspring of the previous generation and the diversity of the
+     * population
+     *
+     * @param population The population to alter
+     */
+    private void adapt(Seq<Phenotype<G, C>> population) {
+        Set<Genotype<G>> distinct = new HashSet<>();
+        for (Phenotype<G, C> phenotype : population) {
+            distinct.add(phenotype.getGenotype());
+        }
+        this.diversity = (double) distinct.size() / Math.max(1, population.size());
+        this.currentCrossoverProbability = this.crossoverProbability * Math.min(1d, this.diversity / this.minDiversity);
+        long count = this.trials.sumThenReset();
+        long successful = this.successes.sumThenReset();
+        if (count == 0 && this.diversity >= this.minDiversity) {
+            return;
+        }
+        this.successRatio = count == 0 ? Double.NaN : (double) successful / count;
+        double probability = this.diversity < this.minDiversity || this.successRatio < SUCCESS_RATIO
+                ? this.mutationProbability * this.factor
+                : this.mutationProbability / Math.pow(this.factor, 0.25);
+        this.mutationProbability = Math.min(this.maxMutationProbability, Math.max(this.minMutationProbability, probability));
+    }
+
+    /**
+     * Returns the current mutation probability
+     *
+     * @return The mutation probability
+     */
+    public double getMutationProbability() {
+        return this.mutationProbability;
+    }
+
+    /**
+     * Returns the current crossover probability
+     *
+     * @return The crossover probability
+     */
+    public double getCrossoverProbability() {
+        return this.currentCrossoverProbability;
+    }
+
+    /**
+     * Returns the ratio of successful offspring of the last evaluated generation
+     *
+     * @return The success ratio, NaN if unknown
+     */
+    public double getSuccessRatio() {
+        return this.successRatio;
+    }
+
+    /**
+     * Returns the fraction of distinct genotypes in the last altered population
+     *
+     * @return The diversity, NaN if nothing was altered yet
+     */
+    public double getDiversity() {
+        return this.diversity;
+    }
+
+    @Override
+    public String toString() {
+        return "Mutation probability: " + this.mutationProbability + " Crossover probability: " + this.currentCrossoverProbability
+                + " Success ratio: " + this.successRatio + " Diversity: " + this.diversity;
+    }
+}
@@ -0,0 +1,490 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.distributed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Master side of the distributed fitness evaluation. The alleles to evaluate are split into batches which are
+ * shipped to the connected workers. Every worker gets several batches at once so that transfer and evaluation
+ * overlap. If a worker fails or does not answer in time, its outstanding batches are dispatched to the remaining
+ * workers. Failed workers are reconnected without blocking, so an unreachable host never stalls the evaluation.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class DistributedEvaluator implements AutoCloseable {
+
+    /**
+     * The minimal time in milliseconds between two attempts to reconnect a failed worker
+     */
+    private static final long RECONNECT_INTERVAL_MILLIS = 5000;
+
+    /**
+     * The time in milliseconds after which a connection attempt is given up
+     */
+    private static final long CONNECT_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * The default maximum number of individuals per batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * The default maximum number of batches in flight per worker
+     */
+    public static final int DEFAULT_PIPELINE_DEPTH = 4;
+
+    /**
+     * The default time in milliseconds after which a worker not answering is considered to be failed, generous enough
+     * for a batch of expensive evaluations
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 60000;
+
+    /**
+     * The workers, alive or failed
+     */
+    private final List<Worker> workers = new ArrayList<>();
+
+    /**
+     * The maximum number of individuals per batch
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum number of batches in flight per worker
+     */
+    private final int pipelineDepth;
+
+    /**
+     * The time in milliseconds after which a worker not answering is considered to be failed
+     */
+    private final long timeoutMillis;
+
+    /**
+     * The selector multiplexing all worker connections
+     */
+    private final Selector selector;
+
+    /**
+     * The id of the next batch
+     */
+    private long nextBatchId;
+
+    /**
+     * The number of batches which had to be dispatched again because of a failed worker
+     */
+    private long redispatchedBatches;
+
+    /**
+     * Creates the evaluator and connects to the workers
+     *
+     * @param addresses     The addresses of the workers
+     * @param batchSize     The maximum number of individuals per batch
+     * @param pipelineDepth The maximum number of batches in flight per worker
+     * @param timeoutMillis The time in milliseconds after which a worker not answering is considered to be failed
+     *
+     * @throws IOException If no worker is reachable
+     */
+    public DistributedEvaluator(List<InetSocketAddress> addresses, int batchSize, int pipelineDepth, long timeoutMillis) throws IOException {
+        this.batchSize = batchSize;
+        this.pipelineDepth = pipelineDepth;
+        this.timeoutMillis = timeoutMillis;
+        this.selector = Selector.open();
+        for (InetSocketAddress address : addresses) {
+            Worker worker = new Worker(address);
+            this.workers.add(worker);
+            connect(worker);
+        }
+        /*
+         * Wait for the connection attempts, so that the first evaluation can use all reachable workers
+         */
+        while (this.workers.stream().anyMatch(w -> w.connecting)) {
+            this.selector.select(CONNECT_TIMEOUT_MILLIS / 10);
+            for (SelectionKey key : this.selector.selectedKeys()) {
+                finishConnect((Worker) key.attachment());
+            }
+            this.selector.selectedKeys().clear();
+            abandonTimedOutConnects();
+        }
+        if (this.workers.stream().noneMatch(Worker::isAlive)) {
+            this.selector.close();
+            throw new IOException("None of the workers " + addresses + " is reachable");
+        }
+    }
+
+    /**
+     * Evaluates the alleles of the given individuals on the workers
+     *
+     * @param alleles The alleles of the individuals, all of the same length
+     *
+     * @return The objective values, in the order of the individuals
+     *
+     * @throws UncheckedIOException If all workers failed
+     */
+    public synchronized double[][] evaluate(List<int[]> alleles) {
+        double[][] values = new double[alleles.size()][];
+        Deque<Batch> pending = new ArrayDeque<>();
+        for (int offset = 0; offset < alleles.size(); offset += this.batchSize) {
+            pending.add(new Batch(this.nextBatchId++, offset, alleles.subList(offset, Math.min(offset + this.batchSize, alleles.size()))));
+        }
+        long now = System.currentTimeMillis();
+        this.workers.stream().filter(w -> w.isFailed() && now - w.lastConnectAttempt > RECONNECT_INTERVAL_MILLIS).forEach(this::connect);
+        int outstanding = pending.size();
+        try {
+            while (outstanding > 0) {
+                dispatch(pending);
+                this.selector.select(Math.max(1, Math.min(this.timeoutMillis, CONNECT_TIMEOUT_MILLIS) / 4));
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Worker worker = (Worker) key.attachment();
+                    if (key.isValid() && key.isConnectable()) {
+                        finishConnect(worker);
+                        continue;
+                    }
+                    try {
+                        if (key.isValid() && key.isReadable()) {
+                            worker.reader.read(worker.channel);
+                            ByteBuffer payload;
+                            while ((payload = worker.reader.next()) != null) {
+                                /*
+                                 * Count each batch as soon as it is completed, a later invalid frame must not lose it
+                                 */
+                                receive(worker, payload, values);
+                                outstanding--;
+                            }
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(worker);
+                        }
+                    } catch (IOException e) {
+                        fail(worker, pending, e.getMessage());
+                    }
+                }
+                abandonTimedOutConnects();
+                for (Worker worker : this.workers) {
+                    if (worker.isAlive() && !worker.inFlight.isEmpty() && System.currentTimeMillis() - worker.lastProgress > this.timeoutMillis) {
+                        fail(worker, pending, "no response within " + this.timeoutMillis + "ms");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the number of batches which had to be dispatched again because of a failed worker
+     *
+     * @return The number of re-dispatched batches
+     */
+    public synchronized long getRedispatchedBatches() {
+        return this.redispatchedBatches;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Worker worker : this.workers) {
+            if (!worker.isFailed()) {
+                worker.channel.close();
+            }
+        }
+        this.selector.close();
+    }
+
+    /**
+     * Fills the pipelines of all alive workers with pending batches
+     *
+     * @param pending The batches not yet dispatched
+     *
+     * @throws IOException If no worker is alive or connecting anymore
+     */
+    private void dispatch(Deque<Batch> pending) throws IOException {
+        if (this.workers.stream().allMatch(Worker::isFailed)) {
+            throw new IOException("All workers failed");
+        }
+        for (Worker worker : this.workers) {
+            if (!worker.isAlive()) {
+                continue;
+            }
+            if (worker.inFlight.isEmpty()) {
+                worker.lastProgress = System.currentTimeMillis();
+            }
+            while (worker.inFlight.size() < this.pipelineDepth && !pending.isEmpty()) {
+                Batch batch = pending.poll();
+                worker.inFlight.put(batch.id, batch);
+                worker.output.add(Frames.request(batch.id, batch.alleles));
+            }
+            try {
+                flush(worker);
+            } catch (IOException e) {
+                fail(worker, pending, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes as much of the pending output of a worker as possible without blocking
+     *
+     * @param worker The worker
+     *
+     * @throws IOException If writing fails
+     */
+    private void flush(Worker worker) throws IOException {
+        while (!worker.output.isEmpty()) {
+            worker.channel.write(worker.output.peek());
+            if (worker.output.peek().hasRemaining()) {
+                break;
+            }
+            worker.output.poll();
+        }
+        worker.key.interestOps(worker.output.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Completes the batch answered by a response of a worker
+     *
+     * @param worker  The worker
+     * @param payload The payload of the response
+     * @param values  The objective values to fill
+     *
+     * @throws IOException If the response does not answer a batch in flight or is malformed
+     */
+    private void receive(Worker worker, ByteBuffer payload, double[][] values) throws IOException {
+        double[][] batchValues;
+        Batch batch;
+        try {
+            batch = worker.inFlight.get(payload.getLong());
+            if (batch == null) {
+                throw new IOException("Unexpected response from " + worker.address);
+            }
+            batchValues = Frames.values(payload);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed response from " + worker.address + ": " + e, e);
+        }
+        if (batchValues.length != batch.alleles.size()) {
+            throw new IOException("Response from " + worker.address + " contains " + batchValues.length
+                    + " instead of " + batch.alleles.size() + " individuals");
+        }
+        worker.inFlight.remove(batch.id);
+        System.arraycopy(batchValues, 0, values, batch.offset, batchValues.length);
+        worker.lastProgress = System.currentTimeMillis();
+    }
+
+    /**
+     * Starts connecting to a worker without blocking, a failed attempt leaves the worker failed
+     *
+     * @param worker The worker
+     */
+    private void connect(Worker worker) {
+        worker.lastConnectAttempt = System.currentTimeMillis();
+        try {
+            SocketChannel channel = SocketChannel.open();
+            try {
+                channel.configureBlocking(false);
+                worker.channel = channel;
+                worker.reader = new Frames.Reader();
+                worker.output.clear();
+                worker.connecting = true;
+                worker.key = channel.register(this.selector, SelectionKey.OP_CONNECT, worker);
+                if (channel.connect(worker.address)) {
+                    finishConnect(worker);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            abandonConnect(worker, e.getMessage());
+        }
+    }
+
+    /**
+     * Completes a pending connection attempt to a worker, a failed attempt leaves the worker failed
+     *
+     * @param worker The worker
+     */
+    private void finishConnect(Worker worker) {
+        try {
+            if (worker.channel.finishConnect()) {
+                worker.channel.socket().setTcpNoDelay(true);
+                worker.connecting = false;
+                worker.key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            abandonConnect(worker, e.getMessage());
+        }
+    }
+
+    /**
+     * Gives up the connection attempts taking longer than {@link #CONNECT_TIMEOUT_MILLIS}
+     */
+    private void abandonTimedOutConnects() {
+        long now = System.currentTimeMillis();
+        for (Worker worker : this.workers) {
+            if (worker.connecting && now - worker.lastConnectAttempt > CONNECT_TIMEOUT_MILLIS) {
+                abandonConnect(worker, "no connection within " + CONNECT_TIMEOUT_MILLIS + "ms");
+            }
+        }
+    }
+
+    /**
+     * Gives up a connection attempt to a worker and leaves it failed
+     *
+     * @param worker The worker
+     * @param reason The reason
+     */
+    private void abandonConnect(Worker worker, String reason) {
+        System.out.println("Worker " + worker.address + " not reachable: " + reason);
+        close(worker);
+    }
+
+    /**
+     * Marks a worker as failed and returns its outstanding batches to the pending ones
+     *
+     * @param worker  The worker
+     * @param pending The batches not yet dispatched
+     * @param reason  The reason of the failure
+     */
+    private void fail(Worker worker, Deque<Batch> pending, String reason) {
+        System.out.println("Worker " + worker.address + " failed (" + reason + "), re-dispatching " + worker.inFlight.size() + " batches");
+        this.redispatchedBatches += worker.inFlight.size();
+        worker.inFlight.values().forEach(pending::addFirst);
+        worker.inFlight.clear();
+        close(worker);
+    }
+
+    /**
+     * Closes the connection to a worker and leaves it failed
+     *
+     * @param worker The worker
+     */
+    private void close(Worker worker) {
+        if (worker.key != null) {
+            worker.key.cancel();
+        }
+        if (worker.channel != null) {
+            try {
+                worker.channel.close();
+            } catch (IOException e) {
+                // the connection is abandoned anyway
+            }
+        }
+        worker.channel = null;
+        worker.key = null;
+        worker.connecting = false;
+    }
+
+    /**
+     * A batch of individuals evaluated together
+     */
+    private static class Batch {
+
+        /**
+         * The id of the batch
+         */
+        private final long id;
+
+        /**
+         * The index of the first individual of the batch
+         */
+        private final int offset;
+
+        /**
+         * The alleles of the individuals
+         */
+        private final List<int[]> alleles;
+
+        private Batch(long id, int offset, List<int[]> alleles) {
+            this.id = id;
+            this.offset = offset;
+            this.alleles = alleles;
+        }
+    }
+
+    /**
+     * The connection state of a worker
+     */
+    private static class Worker {
+
+        /**
+         * The address of the worker
+         */
+        private final InetSocketAddress address;
+
+        /**
+         * The batches sent to the worker but not yet answered, by their id
+         */
+        private final Map<Long, Batch> inFlight = new LinkedHashMap<>();
+
+        /**
+         * The frames not yet completely written
+         */
+        private final Deque<ByteBuffer> output = new ArrayDeque<>();
+
+        /**
+         * The channel to the worker, <code>null</code> if the worker failed
+         */
+        private SocketChannel channel;
+
+        /**
+         * Whether the connection to the worker is still being established
+         */
+        private boolean connecting;
+
+        /**
+         * The selection key of the channel
+         */
+        private SelectionKey key;
+
+        /**
+         * The reader for incoming responses
+         */
+        private Frames.Reader reader;
+
+        /**
+         * The last time the worker got work while idle or answered a batch
+         */
+        private long lastProgress;
+
+        /**
+         * The last time a connection to the worker was attempted
+         */
+        private long lastConnectAttempt;
+
+        private Worker(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * Returns whether the worker is connected and can take batches
+         *
+         * @return <code>true</code> if the worker is connected
+         */
+        private boolean isAlive() {
+            return this.channel != null && !this.connecting;
+        }
+
+        /**
+         * Returns whether the worker is neither connected nor connecting
+         *
+         * @return <code>true</code> if the worker failed
+         */
+        private boolean isFailed() {
+            return this.channel == null;
+        }
+    }
+}
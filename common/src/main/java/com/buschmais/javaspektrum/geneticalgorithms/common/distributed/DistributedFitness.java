@@ -0,0 +1,105 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.distributed;
+
+import io.jenetics.Alterer;
+import io.jenetics.AltererResult;
+import io.jenetics.Chromosome;
+import io.jenetics.Genotype;
+import io.jenetics.IntegerGene;
+import io.jenetics.Phenotype;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fitness function for Jenetics engines which evaluates on the workers of a {@link DistributedEvaluator}.
+ * <p>
+ * Jenetics evaluates one individual at a time, which would cost a round trip per individual. Therefore the alterer
+ * returned by {@link #alterer(Alterer)} must be used: it ships all newly created offspring of a generation to the
+ * workers in one go, the engine then only picks up the prefetched values. Individuals not prefetched, e.g. the
+ * initial population, are evaluated one by one.
+ *
+ * @param <C> The fitness type
+ *
+ * @author Stephan Pirnbaum
+ */
+public class DistributedFitness<C extends Comparable<? super C>> implements Function<Genotype<IntegerGene>, C> {
+
+    /**
+     * The evaluator shipping the alleles to the workers
+     */
+    private final DistributedEvaluator evaluator;
+
+    /**
+     * Converts the objective values computed by the workers to the fitness
+     */
+    private final Function<double[], C> fitness;
+
+    /**
+     * The fitness of the offspring of the current generation
+     */
+    private final Map<Genotype<IntegerGene>, C> prefetched = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the fitness function
+     *
+     * @param evaluator The evaluator shipping the alleles to the workers
+     * @param fitness   Converts the objective values computed by the workers to the fitness
+     */
+    public DistributedFitness(DistributedEvaluator evaluator, Function<double[], C> fitness) {
+        this.evaluator = evaluator;
+        this.fitness = fitness;
+    }
+
+    @Override
+    public C apply(Genotype<IntegerGene> genotype) {
+        C value = this.prefetched.get(genotype);
+        if (value == null) {
+            value = this.fitness.apply(this.evaluator.evaluate(Collections.singletonList(alleles(genotype)))[0]);
+        }
+        return value;
+    }
+
+    /**
+     * Wraps the alterer of an engine so that all offspring created by it are evaluated in batches
+     *
+     * @param alterer The alterer to wrap
+     *
+     * @return The wrapping alterer
+     */
+    public Alterer<IntegerGene, C> alterer(Alterer<IntegerGene, C> alterer) {
+        return (population, generation) -> {
+            AltererResult<IntegerGene, C> result = alterer.alter(population, generation);
+            List<Genotype<IntegerGene>> offspring = result.getPopulation().stream()
+                    .filter(p -> p.getGeneration() == generation)
+                    .map(Phenotype::getGenotype)
+                    .distinct()
+                    .collect(Collectors.toList());
+            double[][] values = this.evaluator.evaluate(offspring.stream().map(DistributedFitness::alleles).collect(Collectors.toList()));
+            this.prefetched.clear();
+            for (int i = 0; i < values.length; i++) {
+                this.prefetched.put(offspring.get(i), this.fitness.apply(values[i]));
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Extracts the alleles of the first chromosome
+     *
+     * @param genotype The genotype
+     *
+     * @return The alleles
+     */
+    private static int[] alleles(Genotype<IntegerGene> genotype) {
+        Chromosome<IntegerGene> chromosome = genotype.getChromosome();
+        int[] alleles = new int[chromosome.length()];
+        for (int i = 0; i < alleles.length; i++) {
+            alleles[i] = chromosome.getGene(i).getAllele();
+        }
+        return alleles;
+    }
+}
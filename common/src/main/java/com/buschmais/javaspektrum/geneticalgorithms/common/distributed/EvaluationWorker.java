@@ -0,0 +1,165 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.distributed;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Worker side of the distributed fitness evaluation. A worker listens on a TCP port, receives batches of alleles
+ * from the master, evaluates them using all available cores and sends back the objective values.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class EvaluationWorker {
+
+    /**
+     * The function computing the objective values for the alleles of one individual
+     */
+    private final Function<int[], double[]> objectives;
+
+    /**
+     * Creates a worker
+     *
+     * @param objectives The function computing the objective values for the alleles of one individual
+     */
+    public EvaluationWorker(Function<int[], double[]> objectives) {
+        this.objectives = objectives;
+    }
+
+    /**
+     * Serves masters on the given port until the process is terminated
+     *
+     * @param port The port to listen on
+     *
+     * @throws IOException If the server socket can't be opened
+     */
+    public void serve(int port) throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port));
+            System.out.println("Worker listening on port " + port);
+            serve(server);
+        }
+    }
+
+    /**
+     * Serves masters on the given bound server channel until the calling thread is interrupted, then closes all
+     * connections
+     *
+     * @param server The bound server channel
+     *
+     * @throws IOException If selecting fails
+     */
+    void serve(ServerSocketChannel server) throws IOException {
+        try (Selector selector = Selector.open()) {
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isAcceptable()) {
+                            accept(server, selector);
+                        } else {
+                            try {
+                                handle(key);
+                            } catch (IOException e) {
+                                System.out.println("Closing connection: " + e.getMessage());
+                                key.cancel();
+                                key.channel().close();
+                            }
+                        }
+                    }
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.channel() != server) {
+                        key.channel().close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Accepts a new connection from a master
+     *
+     * @param server   The server channel
+     * @param selector The selector to register the connection with
+     *
+     * @throws IOException If accepting fails
+     */
+    private void accept(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    /**
+     * Reads pending requests, evaluates them and writes the responses of a connection
+     *
+     * @param key The selection key of the connection
+     *
+     * @throws IOException If the connection fails, a request is malformed or its evaluation fails
+     */
+    private void handle(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (key.isReadable()) {
+            connection.reader.read(channel);
+            ByteBuffer payload;
+            while ((payload = connection.reader.next()) != null) {
+                /*
+                 * A malformed request or a failing evaluation only closes this connection, the worker keeps serving
+                 */
+                try {
+                    long batchId = payload.getLong();
+                    int[][] alleles = Frames.alleles(payload);
+                    double[][] values = new double[alleles.length][];
+                    IntStream.range(0, alleles.length).parallel().forEach(i -> values[i] = objectives.apply(alleles[i]));
+                    connection.output.add(Frames.response(batchId, values));
+                } catch (RuntimeException e) {
+                    throw new IOException("Invalid request: " + e, e);
+                }
+            }
+        }
+        while (!connection.output.isEmpty()) {
+            channel.write(connection.output.peek());
+            if (connection.output.peek().hasRemaining()) {
+                break;
+            }
+            connection.output.poll();
+        }
+        key.interestOps(connection.output.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * The state of a connection to a master
+     */
+    private static class Connection {
+
+        /**
+         * The reader for incoming requests
+         */
+        private final Frames.Reader reader = new Frames.Reader();
+
+        /**
+         * The responses not yet completely written
+         */
+        private final Deque<ByteBuffer> output = new ArrayDeque<>();
+    }
+}
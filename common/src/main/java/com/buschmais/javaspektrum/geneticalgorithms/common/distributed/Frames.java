@@ -0,0 +1,189 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.distributed;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+/**
+ * The binary protocol spoken between master and workers. Every frame is prefixed by the length of its payload.
+ * <p>
+ * A request payload consists of the batch id, the number of individuals, the number of alleles per individual and
+ * the alleles itself. A response payload consists of the batch id, the number of individuals, the number of
+ * objectives per individual and the objective values itself.
+ *
+ * @author Stephan Pirnbaum
+ */
+final class Frames {
+
+    /**
+     * The maximum accepted payload size, protects against reading garbage as a frame length
+     */
+    private static final int MAX_PAYLOAD = 64 * 1024 * 1024;
+
+    private Frames() {
+    }
+
+    /**
+     * Encodes a request frame
+     *
+     * @param batchId The id of the batch
+     * @param alleles The alleles of all individuals of the batch, all of the same length
+     *
+     * @return The frame, ready to be written
+     */
+    static ByteBuffer request(long batchId, List<int[]> alleles) {
+        int genomeLength = alleles.isEmpty() ? 0 : alleles.get(0).length;
+        int payload = Long.BYTES + 2 * Integer.BYTES + alleles.size() * genomeLength * Integer.BYTES;
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + payload);
+        frame.putInt(payload).putLong(batchId).putInt(alleles.size()).putInt(genomeLength);
+        for (int[] individual : alleles) {
+            frame.asIntBuffer().put(individual);
+            frame.position(frame.position() + individual.length * Integer.BYTES);
+        }
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Encodes a response frame
+     *
+     * @param batchId The id of the batch
+     * @param values  The objective values of all individuals of the batch, all of the same length
+     *
+     * @return The frame, ready to be written
+     */
+    static ByteBuffer response(long batchId, double[][] values) {
+        int objectives = values.length == 0 ? 0 : values[0].length;
+        int payload = Long.BYTES + 2 * Integer.BYTES + values.length * objectives * Double.BYTES;
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + payload);
+        frame.putInt(payload).putLong(batchId).putInt(values.length).putInt(objectives);
+        for (double[] individual : values) {
+            frame.asDoubleBuffer().put(individual);
+            frame.position(frame.position() + individual.length * Double.BYTES);
+        }
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Decodes the alleles of a request payload, the batch id must already have been consumed
+     *
+     * @param payload The payload
+     *
+     * @return The alleles of all individuals
+     */
+    static int[][] alleles(ByteBuffer payload) {
+        int count = payload.getInt();
+        int length = payload.getInt();
+        checkDimensions(count, length, Integer.BYTES, payload);
+        int[][] alleles = new int[count][length];
+        for (int[] individual : alleles) {
+            payload.asIntBuffer().get(individual);
+            payload.position(payload.position() + individual.length * Integer.BYTES);
+        }
+        return alleles;
+    }
+
+    /**
+     * Decodes the objective values of a response payload, the batch id must already have been consumed
+     *
+     * @param payload The payload
+     *
+     * @return The objective values of all individuals
+     */
+    static double[][] values(ByteBuffer payload) {
+        int count = payload.getInt();
+        int length = payload.getInt();
+        checkDimensions(count, length, Double.BYTES, payload);
+        double[][] values = new double[count][length];
+        for (double[] individual : values) {
+            payload.asDoubleBuffer().get(individual);
+            payload.position(payload.position() + individual.length * Double.BYTES);
+        }
+        return values;
+    }
+
+    /**
+     * Checks the dimensions of a payload against its size, so that a malformed payload can't make the decoder allocate
+     * arbitrary amounts of memory
+     *
+     * @param count   The number of individuals
+     * @param length  The number of values per individual
+     * @param bytes   The number of bytes per value
+     * @param payload The payload, positioned at the first value
+     *
+     * @throws IllegalArgumentException If the dimensions don't match the size of the payload
+     */
+    private static void checkDimensions(int count, int length, int bytes, ByteBuffer payload) {
+        if (count < 0 || length < 0 || (count > 0 && length == 0) || (long) count * length * bytes != payload.remaining()) {
+            throw new IllegalArgumentException("Invalid dimensions " + count + "x" + length + " for " + payload.remaining() + " bytes");
+        }
+    }
+
+    /**
+     * Accumulates bytes read from a non-blocking channel and splits them into frames
+     */
+    static class Reader {
+
+        /**
+         * The bytes read but not yet consumed, always in write mode
+         */
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        /**
+         * Reads all currently available bytes from the channel
+         *
+         * @param channel The channel to read from
+         *
+         * @throws IOException If reading fails or the peer closed the connection
+         */
+        void read(ReadableByteChannel channel) throws IOException {
+            int read;
+            do {
+                if (!buffer.hasRemaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    buffer = larger.put(buffer);
+                }
+                read = channel.read(buffer);
+            } while (read > 0);
+            if (read < 0) {
+                throw new EOFException("Connection closed by peer");
+            }
+        }
+
+        /**
+         * Returns the payload of the next complete frame
+         *
+         * @return The payload or <code>null</code> if no complete frame is available yet
+         *
+         * @throws IOException If the frame length is invalid
+         */
+        ByteBuffer next() throws IOException {
+            buffer.flip();
+            try {
+                if (buffer.remaining() < Integer.BYTES) {
+                    return null;
+                }
+                int length = buffer.getInt(buffer.position());
+                if (length < 0 || length > MAX_PAYLOAD) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                if (buffer.remaining() < Integer.BYTES + length) {
+                    return null;
+                }
+                buffer.position(buffer.position() + Integer.BYTES);
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                int limit = buffer.limit();
+                buffer.limit(buffer.position() + length);
+                payload.put(buffer).flip();
+                buffer.limit(limit);
+                return payload;
+            } finally {
+                buffer.compact();
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.distributed;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts worker processes on the local host, mainly for trying out the distributed evaluation. Every worker is a JVM
+ * running the given main class with the arguments <code>worker &lt;port&gt;</code> on the class path of the
+ * current JVM.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class LocalWorkers implements AutoCloseable {
+
+    /**
+     * The time in milliseconds to wait for a worker to accept connections
+     */
+    private static final long STARTUP_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * The worker processes
+     */
+    private final List<Process> processes = new ArrayList<>();
+
+    /**
+     * The addresses of the workers
+     */
+    private final List<InetSocketAddress> addresses = new ArrayList<>();
+
+    /**
+     * Starts the workers and waits until all of them accept connections
+     *
+     * @param mainClass The main class of the workers
+     * @param count     The number of workers
+     * @param basePort  The port of the first worker, the other workers use the subsequent ports
+     *
+     * @throws IOException If a worker can't be started
+     */
+    public LocalWorkers(Class<?> mainClass, int count, int basePort) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        for (int i = 0; i < count; i++) {
+            int port = basePort + i;
+            this.processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), mainClass.getName(), "worker", String.valueOf(port))
+                    .inheritIO()
+                    .start());
+            this.addresses.add(new InetSocketAddress("localhost", port));
+        }
+        for (InetSocketAddress address : this.addresses) {
+            awaitStartup(address);
+        }
+    }
+
+    /**
+     * Returns the addresses of the workers
+     *
+     * @return The addresses
+     */
+    public List<InetSocketAddress> getAddresses() {
+        return this.addresses;
+    }
+
+    /**
+     * Terminates all workers
+     */
+    @Override
+    public void close() {
+        this.processes.forEach(Process::destroy);
+    }
+
+    /**
+     * Waits until the worker with the given address accepts connections
+     *
+     * @param address The address of the worker
+     *
+     * @throws IOException If the worker didn't start in time
+     */
+    private void awaitStartup(InetSocketAddress address) throws IOException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                new Socket(address.getHostString(), address.getPort()).close();
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    close();
+                    throw new IOException("Worker " + address + " did not start in time", e);
+                }
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IOException("Interrupted while waiting for worker " + address, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.steadystate;
+
+import io.jenetics.Alterer;
+import io.jenetics.Gene;
+import io.jenetics.Genotype;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Engine;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.RandomRegistry;
+import io.jenetics.util.Seq;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Steady-state evolution using the genotype factory, fitness function, alterer, optimization direction and population
+ * size of a Jenetics engine. Instead of replacing the whole population per generation, each step selects a few parents
+ * by tournament, alters them and lets every offspring replace the worst individual if it is not worse. Offspring equal
+ * to an individual of the population are rejected to keep the population diverse.
+ * <p>
+ * The population is indexed by fitness, so finding and replacing the worst individual and tracking the best one takes
+ * O(log n) per offspring. A step only creates and evaluates the new offspring, which gives fine-grained progress and
+ * little garbage compared to rebuilding the population each generation.
+ *
+ * @param <G> The gene type
+ * @param <C> The fitness type
+ *
+ * @author Stephan Pirnbaum
+ */
+public class SteadyStateEngine<G extends Gene<?, G>, C extends Comparable<? super C>> {
+
+    /**
+     * The number of genotypes created per individual of the initial population at most before giving up on finding
+     * distinct ones
+     */
+    private static final int MAX_ATTEMPTS_PER_INDIVIDUAL = 10;
+
+    /**
+     * The engine providing the genotype factory, fitness function, alterer and optimization direction
+     */
+    private final Engine<G, C> engine;
+
+    /**
+     * The fitness function of the engine
+     */
+    private final Function<Genotype<G>, C> fitness;
+
+    /**
+     * The individuals by slot
+     */
+    private final List<Phenotype<G, C>> slots;
+
+    /**
+     * The slots ordered by the fitness of their individuals, the worst first
+     */
+    private final TreeSet<Integer> ranking;
+
+    /**
+     * The genotypes of the population, used for rejecting duplicates
+     */
+    private final Set<Genotype<G>> genotypes = new HashSet<>();
+
+    /**
+     * The number of parents selected per step
+     */
+    private int parents = 2;
+
+    /**
+     * The number of individuals competing in a tournament
+     */
+    private int tournamentSize = 3;
+
+    /**
+     * The number of executed steps
+     */
+    private long steps;
+
+    /**
+     * The number of evaluated offspring
+     */
+    private long evaluations;
+
+    /**
+     * The number of offspring which replaced an individual
+     */
+    private long replacements;
+
+    /**
+     * The step the best individual was found in
+     */
+    private long improvementStep;
+
+    private SteadyStateEngine(Engine<G, C> engine) {
+        this.engine = engine;
+        this.fitness = engine.getFitnessFunction()::apply;
+        Comparator<Phenotype<G, C>> byFitness = engine.getOptimize().ascending();
+        this.slots = new ArrayList<>(engine.getPopulationSize());
+        this.ranking = new TreeSet<>(Comparator.comparing((Integer slot) -> this.slots.get(slot), byFitness)
+                .thenComparing(Comparator.naturalOrder()));
+    }
+
+    /**
+     * Creates a steady-state engine with a random initial population of distinct genotypes
+     *
+     * @param engine The engine providing the genotype factory, fitness function, alterer, optimization direction and
+     *               population size
+     * @param <G>    The gene type
+     * @param <C>    The fitness type
+     *
+     * @return The steady-state engine
+     *
+     * @throws IllegalArgumentException If the genotype factory doesn't yield enough distinct genotypes
+     */
+    public static <G extends Gene<?, G>, C extends Comparable<? super C>> SteadyStateEngine<G, C> of(Engine<G, C> engine) {
+        SteadyStateEngine<G, C> steadyStateEngine = new SteadyStateEngine<>(engine);
+        /*
+         * Regenerate duplicates, the rejection of duplicate offspring relies on every genotype being present only once
+         */
+        int attempts = 0;
+        while (steadyStateEngine.slots.size() < engine.getPopulationSize()) {
+            if (++attempts > MAX_ATTEMPTS_PER_INDIVIDUAL * engine.getPopulationSize()) {
+                throw new IllegalArgumentException("Could not create " + engine.getPopulationSize() + " distinct genotypes");
+            }
+            Genotype<G> genotype = engine.getGenotypeFactory().newInstance();
+            if (!steadyStateEngine.genotypes.add(genotype)) {
+                continue;
+            }
+            Phenotype<G, C> phenotype = steadyStateEngine.newPhenotype(genotype);
+            phenotype.getFitness();
+            steadyStateEngine.evaluations++;
+            steadyStateEngine.slots.add(phenotype);
+            steadyStateEngine.ranking.add(steadyStateEngine.slots.size() - 1);
+        }
+        return steadyStateEngine;
+    }
+
+    /**
+     * Sets the number of parents selected per step, 2 by default
+     *
+     * @param parents The number of parents, at least 2 for the crossover
+     *
+     * @return This engine
+     */
+    public SteadyStateEngine<G, C> parents(int parents) {
+        this.parents = Math.max(2, parents);
+        return this;
+    }
+
+    /**
+     * Sets the number of individuals competing in a tournament for becoming a parent, 3 by default
+     *
+     * @param tournamentSize The tournament size
+     *
+     * @return This engine
+     */
+    public SteadyStateEngine<G, C> tournamentSize(int tournamentSize) {
+        this.tournamentSize = tournamentSize;
+        return this;
+    }
+
+    /**
+     * Executes steps as long as the condition holds
+     *
+     * @param proceed     Tested before each step, the evolution stops if it fails
+     * @param improvement Is notified about each new best individual
+     *
+     * @return The best individual
+     */
+    public Phenotype<G, C> evolve(Predicate<? super SteadyStateEngine<G, C>> proceed, Consumer<? super Phenotype<G, C>> improvement) {
+        while (proceed.test(this)) {
+            step();
+            if (this.improvementStep == this.steps) {
+                improvement.accept(getBest());
+            }
+        }
+        return getBest();
+    }
+
+    /**
+     * Executes a single step: selects the parents, alters them and replaces the worst individuals by the offspring
+     */
+    public void step() {
+        this.steps++;
+        Random random = RandomRegistry.getRandom();
+        List<Phenotype<G, C>> selected = new ArrayList<>(this.parents);
+        for (int i = 0; i < this.parents; i++) {
+            selected.add(tournament(random));
+        }
+        Alterer<G, C> alterer = this.engine.getAlterer();
+        Seq<Phenotype<G, C>> offspring = alterer.alter(ISeq.of(selected), this.steps).getPopulation();
+        for (Phenotype<G, C> child : offspring) {
+            if (child.getGeneration() != this.steps || this.genotypes.contains(child.getGenotype())) {
+                continue;
+            }
+            child.getFitness();
+            this.evaluations++;
+            int worst = this.ranking.first();
+            if (this.engine.getOptimize().compare(child.getFitness(), this.slots.get(worst).getFitness()) >= 0) {
+                replace(worst, child);
+            }
+        }
+    }
+
+    /**
+     * Replaces the individual of a slot, keeping the ranking and the genotypes up to date
+     *
+     * @param slot      The slot
+     * @param phenotype The new individual
+     */
+    private void replace(int slot, Phenotype<G, C> phenotype) {
+        boolean improved = this.engine.getOptimize().compare(phenotype.getFitness(), getBest().getFitness()) > 0;
+        this.ranking.remove(slot);
+        this.genotypes.remove(this.slots.get(slot).getGenotype());
+        this.slots.set(slot, phenotype);
+        this.genotypes.add(phenotype.getGenotype());
+        this.ranking.add(slot);
+        this.replacements++;
+        if (improved) {
+            this.improvementStep = this.steps;
+        }
+    }
+
+    /**
+     * Selects the best of randomly chosen individuals
+     *
+     * @param random The random engine
+     *
+     * @return The selected individual
+     */
+    private Phenotype<G, C> tournament(Random random) {
+        Phenotype<G, C> winner = this.slots.get(random.nextInt(this.slots.size()));
+        for (int i = 1; i < this.tournamentSize; i++) {
+            Phenotype<G, C> competitor = this.slots.get(random.nextInt(this.slots.size()));
+            if (this.engine.getOptimize().compare(competitor.getFitness(), winner.getFitness()) > 0) {
+                winner = competitor;
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * Creates an unevaluated phenotype with the fitness function of the engine
+     *
+     * @param genotype The genotype
+     *
+     * @return The phenotype
+     */
+    private Phenotype<G, C> newPhenotype(Genotype<G> genotype) {
+        return Phenotype.of(genotype, this.steps, this.fitness);
+    }
+
+    /**
+     * Returns the best individual
+     *
+     * @return The best individual
+     */
+    public Phenotype<G, C> getBest() {
+        return this.slots.get(this.ranking.last());
+    }
+
+    /**
+     * Returns the worst individual
+     *
+     * @return The worst individual
+     */
+    public Phenotype<G, C> getWorst() {
+        return this.slots.get(this.ranking.first());
+    }
+
+    /**
+     * Returns the number of individuals
+     *
+     * @return The population size
+     */
+    public int getPopulationSize() {
+        return this.slots.size();
+    }
+
+    /**
+     * Returns the number of executed steps
+     *
+     * @return The number of steps
+     */
+    public long getSteps() {
+        return this.steps;
+    }
+
+    /**
+     * Returns the number of fitness evaluations including the initial population
+     *
+     * @return The number of evaluations
+     */
+    public long getEvaluations() {
+        return this.evaluations;
+    }
+
+    /**
+     * Returns the number of offspring which replaced an individual
+     *
+     * @return The number of replacements
+     */
+    public long getReplacements() {
+        return this.replacements;
+    }
+
+    /**
+     * Returns the number of steps executed since the best individual was found
+     *
+     * @return The number of steps
+     */
+    public long getStepsSinceImprovement() {
+        return this.steps - this.improvementStep;
+    }
+
+    /**
+     * Returns the number of generations a generational engine with the same population size needs for the same number of
+     * fitness evaluations
+     *
+     * @return The equivalent number of generations
+     */
+    public double getEquivalentGenerations() {
+        return (double) this.evaluations / this.slots.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Steps: " + this.steps + " Evaluations: " + this.evaluations + " Replacements: " + this.replacements
+                + " Best: " + getBest();
+    }
+}
@@ -0,0 +1,141 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.surrogate;
+
+/**
+ * Surrogate model predicting every objective by a linear function of the features. The coefficients are fitted by
+ * ridge regression on all training data, the normal equations are accumulated incrementally so that training takes
+ * O(d^2) and refitting O(d^3) for d features, independent of the number of samples.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class LinearRegressionModel implements SurrogateModel {
+
+    /**
+     * The regularization added to the diagonal of the normal equations, relative to its mean
+     */
+    private static final double RIDGE = 1e-8;
+
+    /**
+     * The accumulated product of the transposed design matrix with itself, the first row and column belong to the
+     * intercept
+     */
+    private double[][] xtx;
+
+    /**
+     * The accumulated product of the transposed design matrix with the objective values, one row per objective
+     */
+    private double[][] xty;
+
+    /**
+     * The fitted coefficients, one row per objective
+     */
+    private double[][] coefficients;
+
+    /**
+     * The number of training samples
+     */
+    private long samples;
+
+    /**
+     * Whether training data was added since the last fit
+     */
+    private boolean dirty;
+
+    @Override
+    public synchronized void train(double[] features, double[] objectives) {
+        if (this.xtx == null) {
+            this.xtx = new double[features.length + 1][features.length + 1];
+            this.xty = new double[objectives.length][features.length + 1];
+        }
+        double[] x = withIntercept(features);
+        for (int i = 0; i < x.length; i++) {
+            if (x[i] == 0d) {
+                continue;
+            }
+            for (int j = 0; j < x.length; j++) {
+                this.xtx[i][j] += x[i] * x[j];
+            }
+            for (int k = 0; k < objectives.length; k++) {
+                this.xty[k][i] += x[i] * objectives[k];
+            }
+        }
+        this.samples++;
+        this.dirty = true;
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+        return this.xtx != null && this.samples > this.xtx.length;
+    }
+
+    @Override
+    public synchronized double[] predict(double[] features) {
+        if (this.dirty) {
+            fit();
+        }
+        double[] x = withIntercept(features);
+        double[] prediction = new double[this.coefficients.length];
+        for (int k = 0; k < prediction.length; k++) {
+            for (int i = 0; i < x.length; i++) {
+                prediction[k] += this.coefficients[k][i] * x[i];
+            }
+        }
+        return prediction;
+    }
+
+    /**
+     * Solves the regularized normal equations by Cholesky decomposition
+     */
+    private void fit() {
+        int n = this.xtx.length;
+        double trace = 0d;
+        for (int i = 0; i < n; i++) {
+            trace += this.xtx[i][i];
+        }
+        double ridge = Math.max(RIDGE * trace / n, Double.MIN_NORMAL);
+        double[][] l = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = this.xtx[i][j] + (i == j ? ridge : 0d);
+                for (int k = 0; k < j; k++) {
+                    sum -= l[i][k] * l[j][k];
+                }
+                l[i][j] = i == j ? Math.sqrt(Math.max(sum, ridge)) : sum / l[j][j];
+            }
+        }
+        this.coefficients = new double[this.xty.length][];
+        for (int k = 0; k < this.xty.length; k++) {
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                double sum = this.xty[k][i];
+                for (int j = 0; j < i; j++) {
+                    sum -= l[i][j] * y[j];
+                }
+                y[i] = sum / l[i][i];
+            }
+            double[] b = new double[n];
+            for (int i = n - 1; i >= 0; i--) {
+                double sum = y[i];
+                for (int j = i + 1; j < n; j++) {
+                    sum -= l[j][i] * b[j];
+                }
+                b[i] = sum / l[i][i];
+            }
+            this.coefficients[k] = b;
+        }
+        this.dirty = false;
+    }
+
+    /**
+     * Prepends the constant feature of the intercept
+     *
+     * @param features The features
+     *
+     * @return The features including the intercept
+     */
+    private static double[] withIntercept(double[] features) {
+        double[] x = new double[features.length + 1];
+        x[0] = 1d;
+        System.arraycopy(features, 0, x, 1, features.length);
+        return x;
+    }
+}
@@ -0,0 +1,146 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.surrogate;
+
+import java.util.PriorityQueue;
+
+/**
+ * Surrogate model predicting the objective values as the distance weighted mean of the k nearest training samples.
+ * Only the most recent samples are kept, so the model follows the population as it moves through the search space.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class NearestNeighborModel implements SurrogateModel {
+
+    /**
+     * The distance measures between feature vectors
+     */
+    public enum Distance {
+
+        /**
+         * The euclidean distance, for numeric features like loads
+         */
+        EUCLIDEAN {
+            @Override
+            double between(double[] a, double[] b) {
+                double sum = 0d;
+                for (int i = 0; i < a.length; i++) {
+                    sum += (a[i] - b[i]) * (a[i] - b[i]);
+                }
+                return Math.sqrt(sum);
+            }
+        },
+
+        /**
+         * The number of differing positions, for features which are allele vectors
+         */
+        HAMMING {
+            @Override
+            double between(double[] a, double[] b) {
+                int differences = 0;
+                for (int i = 0; i < a.length; i++) {
+                    if (a[i] != b[i]) {
+                        differences++;
+                    }
+                }
+                return differences;
+            }
+        };
+
+        /**
+         * Computes the distance between two feature vectors
+         *
+         * @param a The first feature vector
+         * @param b The second feature vector
+         *
+         * @return The distance
+         */
+        abstract double between(double[] a, double[] b);
+    }
+
+    /**
+     * The number of neighbors to consider
+     */
+    private final int k;
+
+    /**
+     * The distance measure
+     */
+    private final Distance distance;
+
+    /**
+     * The features of the samples, used as ring buffer
+     */
+    private final double[][] features;
+
+    /**
+     * The objective values of the samples, used as ring buffer
+     */
+    private final double[][] objectives;
+
+    /**
+     * The number of samples
+     */
+    private int size;
+
+    /**
+     * The index the next sample is stored at
+     */
+    private int next;
+
+    /**
+     * Creates the model
+     *
+     * @param k        The number of neighbors to consider
+     * @param capacity The number of most recent samples to keep
+     * @param distance The distance measure
+     */
+    public NearestNeighborModel(int k, int capacity, Distance distance) {
+        this.k = k;
+        this.distance = distance;
+        this.features = new double[capacity][];
+        this.objectives = new double[capacity][];
+    }
+
+    @Override
+    public synchronized void train(double[] features, double[] objectives) {
+        this.features[this.next] = features;
+        this.objectives[this.next] = objectives;
+        this.next = (this.next + 1) % this.features.length;
+        this.size = Math.min(this.size + 1, this.features.length);
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+        return this.size >= this.k;
+    }
+
+    @Override
+    public synchronized double[] predict(double[] features) {
+        /*
+         * keep the k nearest samples in a heap with the farthest on top
+         */
+        PriorityQueue<double[]> nearest = new PriorityQueue<>((a, b) -> Double.compare(b[0], a[0]));
+        for (int i = 0; i < this.size; i++) {
+            double d = this.distance.between(features, this.features[i]);
+            if (nearest.size() < this.k) {
+                nearest.add(new double[]{d, i});
+            } else if (d < nearest.peek()[0]) {
+                nearest.poll();
+                nearest.add(new double[]{d, i});
+            }
+        }
+        double[] prediction = new double[this.objectives[0].length];
+        double weights = 0d;
+        for (double[] neighbor : nearest) {
+            double weight = 1d / (neighbor[0] + 1e-9);
+            double[] values = this.objectives[(int) neighbor[1]];
+            for (int j = 0; j < prediction.length; j++) {
+                prediction[j] += weight * values[j];
+            }
+            weights += weight;
+        }
+        for (int j = 0; j < prediction.length; j++) {
+            prediction[j] /= weights;
+        }
+        return prediction;
+    }
+}
@@ -0,0 +1,287 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.surrogate;
+
+import io.jenetics.Alterer;
+import io.jenetics.AltererResult;
+import io.jenetics.Gene;
+import io.jenetics.Genotype;
+import io.jenetics.Phenotype;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Fitness function for Jenetics engines which saves exact evaluations by means of a {@link SurrogateModel}.
+ * <p>
+ * The alterer returned by {@link #alterer(Alterer)} must be used: it predicts the objective values of all new
+ * offspring of a generation and ranks them by their score. Only the most promising fraction is evaluated exactly by
+ * the engine, the fitness of all others is taken from the prediction. Every exact evaluation trains the model.
+ * <p>
+ * Every few generations all offspring are evaluated exactly to re-validate the model. If the mean relative error of the
+ * predictions exceeds the allowed error, all offspring are evaluated exactly until a re-validation succeeds. Note that
+ * an approximated fitness stays with its phenotype, so the final result should be re-evaluated exactly.
+ *
+ * @param <G> The gene type
+ * @param <C> The fitness type
+ *
+ * @author Stephan Pirnbaum
+ */
+public class SurrogateFitness<G extends Gene<?, G>, C extends Comparable<? super C>> implements Function<Genotype<G>, C> {
+
+    /**
+     * The exact, expensive objective function
+     */
+    private final Function<Genotype<G>, double[]> objectives;
+
+    /**
+     * Extracts the features the model works on
+     */
+    private final Function<Genotype<G>, double[]> features;
+
+    /**
+     * The surrogate model
+     */
+    private final SurrogateModel model;
+
+    /**
+     * Converts objective values to the fitness
+     */
+    private final Function<double[], C> fitness;
+
+    /**
+     * Scores objective values, the lower the more promising
+     */
+    private final ToDoubleFunction<double[]> score;
+
+    /**
+     * The fraction of offspring evaluated exactly
+     */
+    private double exactFraction = 0.2;
+
+    /**
+     * The number of generations between two re-validations
+     */
+    private int revalidationInterval = 10;
+
+    /**
+     * The maximum mean relative error of the predictions accepted by a re-validation
+     */
+    private double maxError = 0.05;
+
+    /**
+     * Whether the last re-validation succeeded
+     */
+    private volatile boolean trusted;
+
+    /**
+     * The fitness of the offspring of the current generation approximated by the model
+     */
+    private final Map<Genotype<G>, C> approximated = new ConcurrentHashMap<>();
+
+    /**
+     * The predictions of the offspring of the current generation if it is re-validated
+     */
+    private final Map<Genotype<G>, double[]> predicted = new ConcurrentHashMap<>();
+
+    /**
+     * The sum of the relative errors of the current re-validation
+     */
+    private final DoubleAdder validationError = new DoubleAdder();
+
+    /**
+     * The number of predictions checked by the current re-validation
+     */
+    private final LongAdder validations = new LongAdder();
+
+    /**
+     * The mean relative error of the last re-validation
+     */
+    private volatile double lastValidationError = Double.NaN;
+
+    /**
+     * The number of exact evaluations
+     */
+    private final LongAdder exactEvaluations = new LongAdder();
+
+    /**
+     * The number of distinct offspring whose fitness was taken from the model
+     */
+    private final LongAdder savedEvaluations = new LongAdder();
+
+    /**
+     * Is notified about the objective values of every exact evaluation
+     */
+    private Consumer<double[]> exactListener = o -> {
+    };
+
+    /**
+     * Creates the fitness function
+     *
+     * @param objectives The exact, expensive objective function
+     * @param features   Extracts the features the model works on
+     * @param model      The surrogate model
+     * @param fitness    Converts objective values to the fitness
+     * @param score      Scores objective values, the lower the more promising
+     */
+    public SurrogateFitness(Function<Genotype<G>, double[]> objectives, Function<Genotype<G>, double[]> features,
+                            SurrogateModel model, Function<double[], C> fitness, ToDoubleFunction<double[]> score) {
+        this.objectives = objectives;
+        this.features = features;
+        this.model = model;
+        this.fitness = fitness;
+        this.score = score;
+    }
+
+    /**
+     * Sets the fraction of offspring evaluated exactly, 0.2 by default
+     *
+     * @param exactFraction The fraction
+     *
+     * @return This fitness function
+     */
+    public SurrogateFitness<G, C> exactFraction(double exactFraction) {
+        this.exactFraction = exactFraction;
+        return this;
+    }
+
+    /**
+     * Sets the re-validation parameters, every 10 generations with a maximum error of 5% by default
+     *
+     * @param interval The number of generations between two re-validations
+     * @param maxError The maximum mean relative error of the predictions
+     *
+     * @return This fitness function
+     */
+    public SurrogateFitness<G, C> revalidation(int interval, double maxError) {
+        this.revalidationInterval = interval;
+        this.maxError = maxError;
+        return this;
+    }
+
+    /**
+     * Sets a listener notified about the objective values of every exact evaluation, e.g. for tracking the quality of
+     * the evolution without being misled by approximated fitness values. The listener may be called concurrently.
+     *
+     * @param exactListener The listener
+     *
+     * @return This fitness function
+     */
+    public SurrogateFitness<G, C> onExactEvaluation(Consumer<double[]> exactListener) {
+        this.exactListener = exactListener;
+        return this;
+    }
+
+    @Override
+    public C apply(Genotype<G> genotype) {
+        C value = this.approximated.get(genotype);
+        if (value != null) {
+            return value;
+        }
+        double[] exact = this.objectives.apply(genotype);
+        this.exactEvaluations.increment();
+        double[] prediction = this.predicted.remove(genotype);
+        if (prediction != null) {
+            double error = 0d;
+            for (int i = 0; i < exact.length; i++) {
+                error += Math.abs(prediction[i] - exact[i]) / Math.max(Math.abs(exact[i]), Double.MIN_NORMAL);
+            }
+            this.validationError.add(error / exact.length);
+            this.validations.increment();
+        }
+        this.model.train(this.features.apply(genotype), exact);
+        this.exactListener.accept(exact);
+        return this.fitness.apply(exact);
+    }
+
+    /**
+     * Wraps the alterer of an engine so that the offspring created by it are pre-screened by the model
+     *
+     * @param alterer The alterer to wrap
+     *
+     * @return The wrapping alterer
+     */
+    public Alterer<G, C> alterer(Alterer<G, C> alterer) {
+        return (population, generation) -> {
+            AltererResult<G, C> result = alterer.alter(population, generation);
+            completeValidation();
+            this.approximated.clear();
+            this.predicted.clear();
+            if (!this.model.isReady()) {
+                return result;
+            }
+            List<Genotype<G>> offspring = result.getPopulation().stream()
+                    .filter(p -> p.getGeneration() == generation)
+                    .map(Phenotype::getGenotype)
+                    .distinct()
+                    .collect(Collectors.toList());
+            Map<Genotype<G>, double[]> predictions = offspring.stream()
+                    .collect(Collectors.toMap(Function.identity(), g -> this.model.predict(this.features.apply(g))));
+            if (!this.trusted || generation % this.revalidationInterval == 0) {
+                this.predicted.putAll(predictions);
+            } else {
+                offspring.sort(Comparator.comparingDouble(g -> this.score.applyAsDouble(predictions.get(g))));
+                int exact = (int) Math.ceil(offspring.size() * this.exactFraction);
+                for (Genotype<G> genotype : offspring.subList(exact, offspring.size())) {
+                    this.approximated.put(genotype, this.fitness.apply(predictions.get(genotype)));
+                }
+                this.savedEvaluations.add(offspring.size() - exact);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns the number of exact evaluations
+     *
+     * @return The number of exact evaluations
+     */
+    public long getExactEvaluations() {
+        return this.exactEvaluations.sum();
+    }
+
+    /**
+     * Returns the number of evaluations saved by taking the fitness from the model, counted once per distinct genotype
+     * and generation
+     *
+     * @return The number of saved evaluations
+     */
+    public long getSavedEvaluations() {
+        return this.savedEvaluations.sum();
+    }
+
+    /**
+     * Returns the mean relative error of the predictions found by the last re-validation
+     *
+     * @return The error, NaN if there was no re-validation yet
+     */
+    public double getLastValidationError() {
+        return this.lastValidationError;
+    }
+
+    /**
+     * Completes the re-validation of the previous generation, if any, and decides whether the model can be trusted
+     */
+    private void completeValidation() {
+        long count = this.validations.sumThenReset();
+        double error = this.validationError.sumThenReset();
+        if (count > 0) {
+            this.lastValidationError = error / count;
+            this.trusted = this.lastValidationError <= this.maxError;
+        }
+    }
+
+    @Override
+    public String toString() {
+        long exact = getExactEvaluations();
+        long saved = getSavedEvaluations();
+        return "Exact evaluations: " + exact + " Saved evaluations: " + saved
+                + " (" + Math.round(100d * saved / Math.max(1, exact + saved)) + "%) Last validation error: " + this.lastValidationError;
+    }
+}
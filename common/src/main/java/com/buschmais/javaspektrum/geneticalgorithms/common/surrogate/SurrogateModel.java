@@ -0,0 +1,34 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.surrogate;
+
+/**
+ * A cheap model approximating the objective values of an individual from its features. The model is trained online
+ * from exactly evaluated individuals. Implementations must be thread-safe.
+ *
+ * @author Stephan Pirnbaum
+ */
+public interface SurrogateModel {
+
+    /**
+     * Adds an exactly evaluated individual to the training data
+     *
+     * @param features   The features of the individual
+     * @param objectives The exact objective values
+     */
+    void train(double[] features, double[] objectives);
+
+    /**
+     * Checks whether enough training data is available for predictions
+     *
+     * @return <code>true</code> if the model can predict
+     */
+    boolean isReady();
+
+    /**
+     * Predicts the objective values of an individual
+     *
+     * @param features The features of the individual
+     *
+     * @return The predicted objective values
+     */
+    double[] predict(double[] features);
+}
@@ -0,0 +1,122 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.tuning;
+
+import io.jenetics.ExponentialRankSelector;
+import io.jenetics.Gene;
+import io.jenetics.LinearRankSelector;
+import io.jenetics.RouletteWheelSelector;
+import io.jenetics.Selector;
+import io.jenetics.TournamentSelector;
+import io.jenetics.TruncationSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A configuration of the parameters of an engine which are raced against each other by a {@link ParameterRace}
+ *
+ * @author Stephan Pirnbaum
+ */
+public final class Configuration {
+
+    /**
+     * The names of the supported selectors
+     */
+    public static final String[] SELECTORS = {"roulette", "tournament", "linear-rank", "exponential-rank", "truncation"};
+
+    /**
+     * The population size
+     */
+    private final int populationSize;
+
+    /**
+     * The mutation probability
+     */
+    private final double mutationProbability;
+
+    /**
+     * The name of the selector, one of {@link #SELECTORS}
+     */
+    private final String selector;
+
+    /**
+     * Creates a configuration
+     *
+     * @param populationSize      The population size
+     * @param mutationProbability The mutation probability
+     * @param selector            The name of the selector, one of {@link #SELECTORS}
+     */
+    public Configuration(int populationSize, double mutationProbability, String selector) {
+        this.populationSize = populationSize;
+        this.mutationProbability = mutationProbability;
+        this.selector = selector;
+    }
+
+    /**
+     * Creates all combinations of the given parameter values
+     *
+     * @param populationSizes       The population sizes
+     * @param mutationProbabilities The mutation probabilities
+     * @param selectors             The names of the selectors
+     *
+     * @return The configurations
+     */
+    public static List<Configuration> grid(int[] populationSizes, double[] mutationProbabilities, String... selectors) {
+        List<Configuration> configurations = new ArrayList<>();
+        for (int populationSize : populationSizes) {
+            for (double mutationProbability : mutationProbabilities) {
+                for (String selector : selectors) {
+                    configurations.add(new Configuration(populationSize, mutationProbability, selector));
+                }
+            }
+        }
+        return configurations;
+    }
+
+    /**
+     * Returns the population size
+     *
+     * @return The population size
+     */
+    public int getPopulationSize() {
+        return this.populationSize;
+    }
+
+    /**
+     * Returns the mutation probability
+     *
+     * @return The mutation probability
+     */
+    public double getMutationProbability() {
+        return this.mutationProbability;
+    }
+
+    /**
+     * Creates the selector of this configuration
+     *
+     * @param <G> The gene type
+     * @param <N> The fitness type
+     *
+     * @return The selector
+     */
+    public <G extends Gene<?, G>, N extends Number & Comparable<? super N>> Selector<G, N> selector() {
+        switch (this.selector) {
+            case "roulette":
+                return new RouletteWheelSelector<>();
+            case "tournament":
+                return new TournamentSelector<>(3);
+            case "linear-rank":
+                return new LinearRankSelector<>();
+            case "exponential-rank":
+                return new ExponentialRankSelector<>();
+            case "truncation":
+                return new TruncationSelector<>();
+            default:
+                throw new IllegalArgumentException("Unknown selector " + this.selector);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "population=" + this.populationSize + " mutation=" + this.mutationProbability + " selector=" + this.selector;
+    }
+}
@@ -0,0 +1,183 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.tuning;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Friedman test with the post-hoc comparison by Conover as used by F-Race. The measurements are ranked within each
+ * block, smaller values get smaller ranks and ties get their mean rank. The quantiles of the test distributions are
+ * approximated, which is accurate enough for deciding about the elimination of configurations.
+ *
+ * @author Stephan Pirnbaum
+ */
+final class FriedmanTest {
+
+    /**
+     * The number of blocks
+     */
+    private final int blocks;
+
+    /**
+     * The number of treatments
+     */
+    private final int treatments;
+
+    /**
+     * The sum of the ranks of each treatment
+     */
+    private final double[] rankSums;
+
+    /**
+     * The sum of all squared ranks
+     */
+    private final double rankSquares;
+
+    /**
+     * Ranks the measurements
+     *
+     * @param values The measurements by block and treatment, censored measurements are positive infinity
+     */
+    FriedmanTest(double[][] values) {
+        this.blocks = values.length;
+        this.treatments = values[0].length;
+        this.rankSums = new double[this.treatments];
+        double squares = 0d;
+        Integer[] order = new Integer[this.treatments];
+        for (double[] block : values) {
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(i -> block[i]));
+            int start = 0;
+            while (start < order.length) {
+                int end = start;
+                while (end + 1 < order.length && block[order[end + 1]] == block[order[start]]) {
+                    end++;
+                }
+                double rank = (start + end) / 2d + 1;
+                for (int i = start; i <= end; i++) {
+                    this.rankSums[order[i]] += rank;
+                    squares += rank * rank;
+                }
+                start = end + 1;
+            }
+        }
+        this.rankSquares = squares;
+    }
+
+    /**
+     * Returns the mean rank of a treatment
+     *
+     * @param treatment The treatment
+     *
+     * @return The mean rank
+     */
+    double getMeanRank(int treatment) {
+        return this.rankSums[treatment] / this.blocks;
+    }
+
+    /**
+     * Returns the treatment with the smallest rank sum
+     *
+     * @return The best treatment
+     */
+    int best() {
+        int best = 0;
+        for (int i = 1; i < this.treatments; i++) {
+            if (this.rankSums[i] < this.rankSums[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tests whether the treatments differ significantly
+     *
+     * @param alpha The significance level
+     *
+     * @return <code>true</code> if the hypothesis that all treatments are equal is rejected
+     */
+    boolean isSignificant(double alpha) {
+        int n = this.blocks;
+        int k = this.treatments;
+        double correction = n * k * (k + 1) * (k + 1) / 4d;
+        if (k < 2 || this.rankSquares - correction <= 0) {
+            return false;
+        }
+        double deviations = 0d;
+        for (double rankSum : this.rankSums) {
+            deviations += Math.pow(rankSum - n * (k + 1) / 2d, 2);
+        }
+        double statistic = (k - 1) * deviations / (this.rankSquares - correction);
+        return statistic > chiSquareQuantile(1 - alpha, k - 1);
+    }
+
+    /**
+     * Tests whether a treatment is significantly worse than the best one
+     *
+     * @param treatment The treatment
+     * @param alpha     The significance level
+     *
+     * @return <code>true</code> if the treatment is significantly worse
+     */
+    boolean isWorse(int treatment, double alpha) {
+        int n = this.blocks;
+        int k = this.treatments;
+        if (n < 2) {
+            return false;
+        }
+        double squaredRankSums = 0d;
+        for (double rankSum : this.rankSums) {
+            squaredRankSums += rankSum * rankSum;
+        }
+        double degreesOfFreedom = (n - 1) * (k - 1);
+        double error = Math.sqrt(2 * (n * this.rankSquares - squaredRankSums) / degreesOfFreedom);
+        return this.rankSums[treatment] - this.rankSums[best()] > tQuantile(1 - alpha / 2, degreesOfFreedom) * error;
+    }
+
+    /**
+     * Approximates a quantile of the standard normal distribution (Abramowitz and Stegun 26.2.23)
+     *
+     * @param p The probability
+     *
+     * @return The quantile
+     */
+    static double normalQuantile(double p) {
+        double q = p < 0.5 ? p : 1 - p;
+        double t = Math.sqrt(-2 * Math.log(q));
+        double z = t - (2.515517 + 0.802853 * t + 0.010328 * t * t) / (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+        return p < 0.5 ? -z : z;
+    }
+
+    /**
+     * Approximates a quantile of the chi-square distribution (Wilson and Hilferty)
+     *
+     * @param p                The probability
+     * @param degreesOfFreedom The degrees of freedom
+     *
+     * @return The quantile
+     */
+    static double chiSquareQuantile(double p, double degreesOfFreedom) {
+        double h = 2 / (9 * degreesOfFreedom);
+        return degreesOfFreedom * Math.pow(1 - h + normalQuantile(p) * Math.sqrt(h), 3);
+    }
+
+    /**
+     * Approximates a quantile of Student's t distribution (Cornish-Fisher expansion)
+     *
+     * @param p                The probability
+     * @param degreesOfFreedom The degrees of freedom
+     *
+     * @return The quantile
+     */
+    static double tQuantile(double p, double degreesOfFreedom) {
+        double z = normalQuantile(p);
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double z7 = z5 * z * z;
+        return z + (z3 + z) / (4 * degreesOfFreedom)
+                + (5 * z5 + 16 * z3 + 3 * z) / (96 * Math.pow(degreesOfFreedom, 2))
+                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * Math.pow(degreesOfFreedom, 3));
+    }
+}
@@ -0,0 +1,390 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.tuning;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Races configurations against each other to find the one reaching a target in the least CPU time (F-Race).
+ * <p>
+ * The race proceeds in rounds. In each round every remaining configuration is run once in parallel, all of them with
+ * the same seed. After the minimum number of rounds the CPU times of all rounds are compared by a Friedman test, runs
+ * not reaching the target within the run budget rank last. If the configurations differ significantly, all
+ * configurations significantly slower than the best one are dropped. The race ends if only one configuration is left,
+ * the maximum number of rounds is reached or the CPU budget shared by all runs is used up. Every run is limited to the
+ * shared budget left when it starts, a round whose runs got cut short by this is not compared anymore.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class ParameterRace {
+
+    /**
+     * The configurations to race
+     */
+    private final List<Configuration> configurations;
+
+    /**
+     * Runs a configuration
+     */
+    private final Trial trial;
+
+    /**
+     * The number of runs executed in parallel
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The CPU time in nanoseconds shared by all runs
+     */
+    private long budget = Duration.ofMinutes(10).toNanos();
+
+    /**
+     * The CPU time in nanoseconds after which a single run is stopped
+     */
+    private long runBudget = Duration.ofSeconds(30).toNanos();
+
+    /**
+     * The number of rounds before configurations are dropped
+     */
+    private int minRounds = 5;
+
+    /**
+     * The maximum number of rounds
+     */
+    private int maxRounds = 50;
+
+    /**
+     * The significance level of the tests
+     */
+    private double alpha = 0.05;
+
+    /**
+     * The seed of the first round
+     */
+    private long seed = 42;
+
+    /**
+     * The number of executed rounds
+     */
+    private int rounds;
+
+    /**
+     * The used CPU time in nanoseconds
+     */
+    private long usedBudget;
+
+    /**
+     * The CPU time in nanoseconds reserved by the runs currently executed
+     */
+    private long reservedBudget;
+
+    /**
+     * Creates the race
+     *
+     * @param configurations The configurations to race, at least two
+     * @param trial          Runs a configuration
+     *
+     * @throws IllegalArgumentException If there are less than two configurations, there would be nothing to race
+     */
+    public ParameterRace(List<Configuration> configurations, Trial trial) {
+        if (configurations.size() < 2) {
+            throw new IllegalArgumentException("At least two configurations are needed for a race: " + configurations.size());
+        }
+        this.configurations = configurations;
+        this.trial = trial;
+    }
+
+    /**
+     * Sets the number of runs executed in parallel, the number of cores by default
+     *
+     * @param threads The number of threads
+     *
+     * @return This race
+     */
+    public ParameterRace threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the budgets, 10 minutes CPU time shared by all runs and 30 seconds per run by default
+     *
+     * @param budget    The CPU time shared by all runs
+     * @param runBudget The CPU time after which a single run is stopped
+     *
+     * @return This race
+     */
+    public ParameterRace budget(Duration budget, Duration runBudget) {
+        this.budget = budget.toNanos();
+        this.runBudget = runBudget.toNanos();
+        return this;
+    }
+
+    /**
+     * Sets the number of rounds, at least 5 before configurations are dropped and at most 50 by default
+     *
+     * @param minRounds The number of rounds before configurations are dropped
+     * @param maxRounds The maximum number of rounds
+     *
+     * @return This race
+     */
+    public ParameterRace rounds(int minRounds, int maxRounds) {
+        this.minRounds = minRounds;
+        this.maxRounds = maxRounds;
+        return this;
+    }
+
+    /**
+     * Sets the significance level of the tests, 0.05 by default
+     *
+     * @param alpha The significance level
+     *
+     * @return This race
+     */
+    public ParameterRace alpha(double alpha) {
+        this.alpha = alpha;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the first round, the following rounds increment it, 42 by default
+     *
+     * @param seed The seed
+     *
+     * @return This race
+     */
+    public ParameterRace seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Executes the race
+     *
+     * @return All configurations, the remaining ones ordered by their mean rank first, followed by the dropped ones in
+     * the reverse order of dropping. If the budget doesn't suffice for a complete round, the configurations keep their
+     * order.
+     *
+     * @throws InterruptedException If the race is interrupted
+     */
+    public List<Candidate> race() throws InterruptedException {
+        List<Candidate> candidates = this.configurations.stream().map(Candidate::new).collect(Collectors.toList());
+        List<Candidate> remaining = new ArrayList<>(candidates);
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try {
+            while (remaining.size() > 1 && this.rounds < this.maxRounds && this.usedBudget < this.budget) {
+                long roundSeed = this.seed + this.rounds;
+                List<Future<Run>> runs = new ArrayList<>(remaining.size());
+                for (Candidate candidate : remaining) {
+                    runs.add(executor.submit(() -> run(candidate.configuration, roundSeed)));
+                }
+                List<Run> results = new ArrayList<>(runs.size());
+                for (Future<Run> run : runs) {
+                    results.add(run.get());
+                }
+                /*
+                 * A round is only comparable if every run either reached the target or got the full run budget, a run
+                 * cut short by the exhausted shared budget would rank last unfairly
+                 */
+                if (results.stream().anyMatch(r -> !r.time.isPresent() && r.limit < this.runBudget)) {
+                    break;
+                }
+                for (int i = 0; i < results.size(); i++) {
+                    OptionalLong time = results.get(i).time;
+                    remaining.get(i).times.add(time.isPresent() ? time.getAsLong() : Double.POSITIVE_INFINITY);
+                }
+                this.rounds++;
+                /*
+                 * Compare the remaining configurations over all rounds and drop the significantly slower ones
+                 */
+                double[][] values = new double[this.rounds][remaining.size()];
+                for (int i = 0; i < remaining.size(); i++) {
+                    for (int round = 0; round < this.rounds; round++) {
+                        values[round][i] = remaining.get(i).times.get(round);
+                    }
+                }
+                FriedmanTest test = new FriedmanTest(values);
+                for (int i = 0; i < remaining.size(); i++) {
+                    remaining.get(i).meanRank = test.getMeanRank(i);
+                }
+                if (this.rounds >= this.minRounds && test.isSignificant(this.alpha)) {
+                    for (int i = 0; i < remaining.size(); i++) {
+                        if (test.isWorse(i, this.alpha)) {
+                            remaining.get(i).droppedInRound = this.rounds;
+                        }
+                    }
+                    remaining.removeIf(c -> c.droppedInRound > 0);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A run failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        candidates.sort(Comparator.comparingInt((Candidate c) -> c.droppedInRound == 0 ? Integer.MAX_VALUE : c.droppedInRound).reversed()
+                .thenComparingDouble(c -> c.meanRank));
+        return candidates;
+    }
+
+    /**
+     * Runs a configuration within the remaining shared budget. The limit of the run is reserved before it starts, so
+     * that parallel runs together can't exceed the shared budget, and the CPU time actually used is charged afterwards.
+     *
+     * @param configuration The configuration
+     * @param seed          The seed of the round
+     *
+     * @return The run, without a time if the shared budget is used up
+     */
+    private Run run(Configuration configuration, long seed) {
+        long limit;
+        synchronized (this) {
+            limit = Math.min(this.runBudget, this.budget - this.usedBudget - this.reservedBudget);
+            if (limit <= 0) {
+                return new Run(0, OptionalLong.empty());
+            }
+            this.reservedBudget += limit;
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long start = threads.getCurrentThreadCpuTime();
+        OptionalLong time = OptionalLong.empty();
+        try {
+            time = this.trial.run(configuration, seed, limit);
+        } finally {
+            long used = threads.getCurrentThreadCpuTime() - start;
+            synchronized (this) {
+                this.reservedBudget -= limit;
+                this.usedBudget += used;
+            }
+        }
+        return new Run(limit, time);
+    }
+
+    /**
+     * Returns the number of executed rounds
+     *
+     * @return The number of rounds
+     */
+    public int getRounds() {
+        return this.rounds;
+    }
+
+    /**
+     * Returns the CPU time used by all runs
+     *
+     * @return The used CPU time
+     */
+    public synchronized Duration getUsedBudget() {
+        return Duration.ofNanos(this.usedBudget);
+    }
+
+    /**
+     * The outcome of a single run
+     */
+    private static class Run {
+
+        /**
+         * The CPU time in nanoseconds the run was limited to
+         */
+        private final long limit;
+
+        /**
+         * The CPU time in nanoseconds needed to reach the target, empty if it was not reached
+         */
+        private final OptionalLong time;
+
+        private Run(long limit, OptionalLong time) {
+            this.limit = limit;
+            this.time = time;
+        }
+    }
+
+    /**
+     * A configuration and the results of its runs
+     */
+    public static class Candidate {
+
+        /**
+         * The configuration
+         */
+        private final Configuration configuration;
+
+        /**
+         * The CPU times in nanoseconds needed to reach the target per round, positive infinity if it was not reached
+         */
+        private final List<Double> times = new ArrayList<>();
+
+        /**
+         * The mean rank within the configurations remaining in the last round the configuration took part in
+         */
+        private double meanRank = Double.NaN;
+
+        /**
+         * The round the configuration was dropped in, 0 if it was not dropped
+         */
+        private int droppedInRound;
+
+        private Candidate(Configuration configuration) {
+            this.configuration = configuration;
+        }
+
+        /**
+         * Returns the configuration
+         *
+         * @return The configuration
+         */
+        public Configuration getConfiguration() {
+            return this.configuration;
+        }
+
+        /**
+         * Returns the number of runs reaching the target
+         *
+         * @return The number of successful runs
+         */
+        public long getSuccesses() {
+            return this.times.stream().filter(t -> t < Double.POSITIVE_INFINITY).count();
+        }
+
+        /**
+         * Returns the median CPU time needed to reach the target
+         *
+         * @return The median time, <code>null</code> if the target was not reached by at least half of the runs
+         */
+        public Duration getMedianTime() {
+            double[] sorted = this.times.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            if (sorted.length == 0) {
+                return null;
+            }
+            double median = sorted.length % 2 == 1
+                    ? sorted[sorted.length / 2]
+                    : (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2;
+            return median < Double.POSITIVE_INFINITY ? Duration.ofNanos((long) median) : null;
+        }
+
+        /**
+         * Returns the round the configuration was dropped in
+         *
+         * @return The round, 0 if it was not dropped
+         */
+        public int getDroppedInRound() {
+            return this.droppedInRound;
+        }
+
+        @Override
+        public String toString() {
+            Duration median = getMedianTime();
+            return this.configuration + " runs=" + this.times.size() + " successes=" + getSuccesses()
+                    + " median=" + (median != null ? median.toMillis() + "ms" : "-") + " meanRank=" + this.meanRank
+                    + (this.droppedInRound > 0 ? " dropped in round " + this.droppedInRound : "");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.tuning;
+
+import io.jenetics.Gene;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.util.RandomRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A single run of a configuration measuring the CPU time needed to reach the target
+ *
+ * @author Stephan Pirnbaum
+ */
+@FunctionalInterface
+public interface Trial {
+
+    /**
+     * Runs the configuration on the calling thread
+     *
+     * @param configuration The configuration
+     * @param seed          The seed for the random engine, equal for all configurations of a race round
+     * @param budget        The CPU time in nanoseconds after which the run is stopped
+     *
+     * @return The CPU time in nanoseconds needed to reach the target, empty if it was not reached within the budget
+     */
+    OptionalLong run(Configuration configuration, long seed, long budget);
+
+    /**
+     * Creates a trial evolving engines until a target is reached. The engines evaluate on the calling thread, so that
+     * its CPU time covers the whole run and the race alone decides about the parallelism.
+     *
+     * @param engines Creates the preconfigured engine builder for a configuration
+     * @param target  Tests whether an evolution result reached the target
+     * @param <G>     The gene type
+     * @param <C>     The fitness type
+     *
+     * @return The trial
+     */
+    static <G extends Gene<?, G>, C extends Comparable<? super C>> Trial of(Function<Configuration, Engine.Builder<G, C>> engines,
+                                                                             Predicate<? super EvolutionResult<G, C>> target) {
+        return (configuration, seed, budget) -> {
+            Engine<G, C> engine = engines.apply(configuration).executor(Runnable::run).build();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long start = threads.getCurrentThreadCpuTime();
+            return RandomRegistry.with(new Random(seed), random -> {
+                Iterator<EvolutionResult<G, C>> results = engine.stream().iterator();
+                while (true) {
+                    EvolutionResult<G, C> result = results.next();
+                    long used = threads.getCurrentThreadCpuTime() - start;
+                    if (target.test(result)) {
+                        return OptionalLong.of(used);
+                    }
+                    if (used > budget) {
+                        return OptionalLong.empty();
+                    }
+                }
+            });
+        };
+    }
+}
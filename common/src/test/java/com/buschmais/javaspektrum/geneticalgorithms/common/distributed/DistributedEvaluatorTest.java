@@ -0,0 +1,243 @@
+package com.buschmais.javaspektrum.geneticalgorithms.common.distributed;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the master/worker evaluation with in-process workers on ephemeral ports.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class DistributedEvaluatorTest {
+
+    /**
+     * The objectives computed by the workers: the sum and the number of the alleles
+     */
+    private static final Function<int[], double[]> OBJECTIVES = a -> new double[]{Arrays.stream(a).sum(), a.length};
+
+    /**
+     * The threads running workers, interrupted after each test
+     */
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * Stops all workers
+     *
+     * @throws InterruptedException If waiting for the workers is interrupted
+     */
+    @After
+    public void stopWorkers() throws InterruptedException {
+        for (Thread thread : this.threads) {
+            thread.interrupt();
+            thread.join(5000);
+        }
+    }
+
+    @Test
+    public void requestFrameRoundTrips() throws IOException {
+        List<int[]> alleles = Arrays.asList(new int[]{1, 2, 3}, new int[]{4, 5, 6});
+        ByteBuffer payload = readFrame(Frames.request(42, alleles));
+        assertEquals(42, payload.getLong());
+        int[][] decoded = Frames.alleles(payload);
+        assertEquals(2, decoded.length);
+        assertArrayEquals(alleles.get(0), decoded[0]);
+        assertArrayEquals(alleles.get(1), decoded[1]);
+    }
+
+    @Test
+    public void responseFrameRoundTrips() throws IOException {
+        double[][] values = {{1.5, -2}, {3, 4.25}, {0, 1e9}};
+        ByteBuffer payload = readFrame(Frames.response(7, values));
+        assertEquals(7, payload.getLong());
+        double[][] decoded = Frames.values(payload);
+        assertEquals(values.length, decoded.length);
+        for (int i = 0; i < values.length; i++) {
+            assertArrayEquals(values[i], decoded[i], 0d);
+        }
+    }
+
+    @Test
+    public void readerWaitsForCompleteFrames() throws IOException {
+        ByteBuffer frame = Frames.request(1, Collections.singletonList(new int[]{9, 8, 7}));
+        Pipe pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+        Frames.Reader reader = new Frames.Reader();
+        ByteBuffer head = frame.duplicate();
+        head.limit(frame.remaining() / 2);
+        pipe.sink().write(head);
+        reader.read(pipe.source());
+        assertNull(reader.next());
+        frame.position(head.limit());
+        pipe.sink().write(frame);
+        reader.read(pipe.source());
+        ByteBuffer payload = reader.next();
+        assertNotNull(payload);
+        assertEquals(1, payload.getLong());
+        assertArrayEquals(new int[]{9, 8, 7}, Frames.alleles(payload)[0]);
+        assertNull(reader.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedPayloadIsRejected() {
+        ByteBuffer payload = ByteBuffer.allocate(2 * Integer.BYTES + Integer.BYTES);
+        payload.putInt(1000).putInt(1000).putInt(1).flip();
+        Frames.alleles(payload);
+    }
+
+    @Test
+    public void evaluatesPipelinedBatchesInOrder() throws IOException {
+        List<int[]> alleles = individuals(95);
+        try (DistributedEvaluator evaluator = new DistributedEvaluator(Arrays.asList(startWorker(), startWorker()), 10, 3, 10000)) {
+            assertObjectives(alleles, evaluator.evaluate(alleles));
+            assertEquals(0, evaluator.getRedispatchedBatches());
+        }
+    }
+
+    @Test
+    public void redispatchesBatchesOfWorkerClosingMidBatch() throws IOException {
+        List<int[]> alleles = individuals(100);
+        try (DistributedEvaluator evaluator = new DistributedEvaluator(Arrays.asList(startDyingWorker(), startWorker()), 10, 2, 10000)) {
+            assertObjectives(alleles, evaluator.evaluate(alleles));
+            assertTrue(evaluator.getRedispatchedBatches() > 0);
+            assertObjectives(alleles, evaluator.evaluate(alleles));
+        }
+    }
+
+    @Test
+    public void workerSurvivesMalformedRequest() throws IOException {
+        InetSocketAddress worker = startWorker();
+        try (Socket socket = new Socket(worker.getAddress(), worker.getPort())) {
+            OutputStream output = socket.getOutputStream();
+            output.write(ByteBuffer.allocate(Integer.BYTES + 16).putInt(16).putLong(1).putInt(-1).putInt(5).array());
+            output.flush();
+            assertEquals(-1, socket.getInputStream().read());
+        }
+        List<int[]> alleles = individuals(20);
+        try (DistributedEvaluator evaluator = new DistributedEvaluator(Collections.singletonList(worker), 5, 2, 10000)) {
+            assertObjectives(alleles, evaluator.evaluate(alleles));
+        }
+    }
+
+    /**
+     * Starts an in-process worker on an ephemeral port
+     *
+     * @return The address of the worker
+     *
+     * @throws IOException If the server socket can't be opened
+     */
+    private InetSocketAddress startWorker() throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0));
+        start(() -> {
+            try (ServerSocketChannel channel = server) {
+                new EvaluationWorker(OBJECTIVES).serve(channel);
+            } catch (IOException e) {
+                // the worker is stopped
+            }
+        });
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * Starts a worker on an ephemeral port which closes its connection after receiving the first request
+     *
+     * @return The address of the worker
+     *
+     * @throws IOException If the server socket can't be opened
+     */
+    private InetSocketAddress startDyingWorker() throws IOException {
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+        start(() -> {
+            try (ServerSocket socket = server; Socket connection = socket.accept()) {
+                DataInputStream input = new DataInputStream(connection.getInputStream());
+                input.readFully(new byte[input.readInt()]);
+            } catch (IOException e) {
+                // the worker dies anyway
+            }
+        });
+        return new InetSocketAddress("localhost", server.getLocalPort());
+    }
+
+    /**
+     * Starts a daemon thread stopped after the test
+     *
+     * @param runnable The code to run
+     */
+    private void start(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+        this.threads.add(thread);
+    }
+
+    /**
+     * Writes a frame through a pipe and reads it back
+     *
+     * @param frame The frame
+     *
+     * @return The payload of the frame
+     *
+     * @throws IOException If the pipe fails
+     */
+    private static ByteBuffer readFrame(ByteBuffer frame) throws IOException {
+        Pipe pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+        while (frame.hasRemaining()) {
+            pipe.sink().write(frame);
+        }
+        Frames.Reader reader = new Frames.Reader();
+        reader.read(pipe.source());
+        ByteBuffer payload = reader.next();
+        assertNotNull(payload);
+        return payload;
+    }
+
+    /**
+     * Creates individuals with distinct alleles
+     *
+     * @param count The number of individuals
+     *
+     * @return The alleles of the individuals
+     */
+    private static List<int[]> individuals(int count) {
+        List<int[]> alleles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            alleles.add(new int[]{i, 2 * i, 3 * i, 4 * i});
+        }
+        return alleles;
+    }
+
+    /**
+     * Asserts that the objective values match the individuals in order
+     *
+     * @param alleles The alleles of the individuals
+     * @param values  The objective values
+     */
+    private static void assertObjectives(List<int[]> alleles, double[][] values) {
+        assertEquals(alleles.size(), values.length);
+        for (int i = 0; i < alleles.size(); i++) {
+            assertArrayEquals(OBJECTIVES.apply(alleles.get(i)), values[i], 0d);
+        }
+    }
+}
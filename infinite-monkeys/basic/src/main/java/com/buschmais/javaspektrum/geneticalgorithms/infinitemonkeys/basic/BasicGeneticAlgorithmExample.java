@@ -1,9 +1,14 @@
 package com.buschmais.javaspektrum.geneticalgorithms.infinitemonkeys.basic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -29,16 +34,128 @@ public class BasicGeneticAlgorithmExample {
         IntStream.rangeClosed(97, 122).forEach(i -> allels.add((char) i));
     }
 
+    /**
+     * Evolves the target string. The way the mutation and crossover rates are chosen is given by the first argument:
+     * <ul>
+     * <li>none or <code>fixed</code> - fixed rates</li>
+     * <li><code>success-rule</code> - rates adapted by the 1/5 success rule, see {@link RateControl#SUCCESS_RULE}</li>
+     * <li><code>self-adaptive</code> - rates encoded in the individuals, see {@link RateControl#SELF_ADAPTIVE}</li>
+     * <li><code>steady-state</code> - fixed rates, but only one individual is replaced per step, see
+     * {@link SteadyStatePopulation}</li>
+     * <li><code>compare &lt;runs&gt;</code> - compares the number of generations and the wall time of all of them</li>
+     * </ul>
+     * Any other arguments print the usage and exit.
+     *
+     * @param args The arguments
+     */
     public static void main(String[] args) {
         // set population size
         Population.populationSize = 100;
+        if (args.length > 0 && "compare".equals(args[0]) && args.length <= 2) {
+            int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+            Population.verbose = false;
+            for (RateControl rateControl : RateControl.values()) {
+                Population.rateControl = rateControl;
+                long generations = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < runs; i++) {
+                    generations += evolve().generation;
+                }
+                System.out.println(rateControl + ": " + (double) generations / runs + " generations, "
+                        + (System.nanoTime() - start) / 1_000_000d / runs + " ms per run");
+            }
+            Population.rateControl = RateControl.FIXED;
+            long steps = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                steps += evolveSteadyState().steps;
+            }
+            System.out.println("STEADY_STATE: " + (double) steps / runs / Population.populationSize + " equivalent generations, "
+                    + (System.nanoTime() - start) / 1_000_000d / runs + " ms per run");
+        } else if (args.length == 1 && "steady-state".equals(args[0])) {
+            evolveSteadyState();
+            System.out.println("Finished");
+        } else if (args.length == 0 || args.length == 1 && Arrays.stream(RateControl.values()).anyMatch(r -> r.getArgument().equals(args[0]))) {
+            if (args.length == 1) {
+                Population.rateControl = RateControl.valueOf(args[0].toUpperCase().replace('-', '_'));
+            }
+            evolve();
+            System.out.println("Finished");
+        } else {
+            usage();
+        }
+    }
+
+    /**
+     * Prints the supported arguments and exits
+     */
+    private static void usage() {
+        System.err.println("Usage: BasicGeneticAlgorithmExample ["
+                + Arrays.stream(RateControl.values()).map(RateControl::getArgument).collect(Collectors.joining(" | "))
+                + " | steady-state | compare [<runs>]]");
+        System.exit(1);
+    }
+
+    /**
+     * Evolves a random population until the solution is found
+     *
+     * @return The final population
+     */
+    private static Population evolve() {
         // create initial population
         Population population = Population.createRandonInitialPopulation();
         // evolve until solution is found
         while (!(population.bestIndividual.fitness == 1d)) {
             population = population.evolveToNextGeneration();
         }
-        System.out.println("Finished");
+        return population;
+    }
+
+    /**
+     * Evolves a random population step by step until the solution is found
+     *
+     * @return The final population
+     */
+    private static SteadyStatePopulation evolveSteadyState() {
+        SteadyStatePopulation population = new SteadyStatePopulation();
+        while (!(population.getBest().fitness == 1d)) {
+            population.step();
+        }
+        return population;
+    }
+
+    /**
+     * The ways to choose the mutation and crossover rates
+     */
+    private enum RateControl {
+
+        /**
+         * Fixed rates
+         */
+        FIXED,
+
+        /**
+         * The 1/5 success rule: an offspring is successful if it is fitter than the parent it got the first half of its
+         * genes from. If less than a fifth of the offspring of a generation is successful, the mutation rate is increased,
+         * otherwise it is decreased. The crossover rate is lowered as the diversity of the population falls below the
+         * minimum, as crossing equal individuals does not create anything new.
+         */
+        SUCCESS_RULE,
+
+        /**
+         * Each individual carries its own mutation rate which is inherited from the first parent and varied log-normally
+         * before it is applied, so rates creating fit offspring spread through the population
+         */
+        SELF_ADAPTIVE;
+
+        /**
+         * Returns the command line argument selecting this way
+         *
+         * @return The name in lower case with hyphens
+         */
+        String getArgument() {
+            return name().toLowerCase().replace('_', '-');
+        }
     }
 
     /**
@@ -51,6 +168,42 @@ public class BasicGeneticAlgorithmExample {
          */
         private static int populationSize;
 
+        /**
+         * The way to choose the mutation and crossover rates
+         */
+        private static RateControl rateControl = RateControl.FIXED;
+
+        /**
+         * Whether to print each generation
+         */
+        private static boolean verbose = true;
+
+        /**
+         * The initial mutation rate, also used for all generations with fixed rates
+         */
+        private static final double MUTATION_RATE = 0.01;
+
+        /**
+         * The range of the adapted mutation rates
+         */
+        private static final double MIN_MUTATION_RATE = 0.001, MAX_MUTATION_RATE = 0.2;
+
+        /**
+         * The factor the mutation rate is increased by according to the 1/5 success rule, it is decreased by its fourth
+         * root
+         */
+        private static final double ADAPTATION_FACTOR = 1.1;
+
+        /**
+         * The fraction of distinct individuals below which the population has lost its diversity
+         */
+        private static final double MIN_DIVERSITY = 0.2;
+
+        /**
+         * The learning rate of the self-adaptive mutation rates
+         */
+        private static final double LEARNING_RATE = 0.3;
+
         /**
          * The generation of this population
          */
@@ -66,11 +219,28 @@ public class BasicGeneticAlgorithmExample {
          */
         private Chromosome bestIndividual;
 
-        private Population(int generation, List<Chromosome> individuals) {
+        /**
+         * The mutation rate used to create the next generation if the rates are not self-adaptive
+         */
+        private double mutationRate;
+
+        /**
+         * The crossover rate used to create the next generation
+         */
+        private double crossoverRate;
+
+        private Population(int generation, List<Chromosome> individuals, double mutationRate, double crossoverRate) {
             this.generation = generation;
             this.individuals = individuals;
+            this.mutationRate = mutationRate;
+            this.crossoverRate = crossoverRate;
             this.bestIndividual = this.individuals.stream().sorted(Comparator.comparingDouble(c -> -c.getFitness())).findFirst().orElse(null);
-            System.out.println("Generation: " + generation + " Fitness: " + this.bestIndividual.getFitness() + " Best: " + this.bestIndividual.getPhenotype());
+            if (verbose) {
+                System.out.println("Generation: " + generation + " Fitness: " + this.bestIndividual.getFitness() + " Best: " + this.bestIndividual.getPhenotype()
+                        + (rateControl == RateControl.FIXED ? "" : " Mutation rate: " + (rateControl == RateControl.SELF_ADAPTIVE
+                        ? this.individuals.stream().mapToDouble(c -> c.mutationRate).average().orElse(0d) : mutationRate)
+                        + " Crossover rate: " + crossoverRate));
+            }
         }
 
         /**
@@ -81,9 +251,9 @@ public class BasicGeneticAlgorithmExample {
         static Population createRandonInitialPopulation() {
             List<Chromosome> individuals = new ArrayList<>(populationSize);
             for (int i = 0; i < populationSize; i++) {
-                individuals.add(Chromosome.createRandomChromosome());
+                individuals.add(Chromosome.createRandomChromosome(MUTATION_RATE));
             }
-            return new Population(0, individuals);
+            return new Population(0, individuals, MUTATION_RATE, 1d);
         }
 
         /**
@@ -106,19 +276,166 @@ public class BasicGeneticAlgorithmExample {
              * Create the next generation
              */
             List<Chromosome> nextGeneration = new ArrayList<>(populationSize);
+            int successes = 0;
             for (int i = 0; i < populationSize; i++) {
                 /*
                  * Choose two individuals from the mating pool and let them create an offspring individual
                  */
-                Chromosome a = matingPool.get(ThreadLocalRandom.current().nextInt(matingPool.size()));
+                Chromosome parent = matingPool.get(ThreadLocalRandom.current().nextInt(matingPool.size()));
                 Chromosome b = matingPool.get(ThreadLocalRandom.current().nextInt(matingPool.size()));
-                a = a.crossover(b);
+                Chromosome a = ThreadLocalRandom.current().nextDouble() < this.crossoverRate ? parent.crossover(b) : parent;
+                /*
+                 * Apply mutation to the offspring, self-adaptive individuals vary their inherited rate first
+                 */
+                double rate = this.mutationRate;
+                if (rateControl == RateControl.SELF_ADAPTIVE) {
+                    rate = Math.min(MAX_MUTATION_RATE, Math.max(MIN_MUTATION_RATE,
+                            a.mutationRate * Math.exp(LEARNING_RATE * ThreadLocalRandom.current().nextGaussian())));
+                }
+                a = a.mutate(rate);
+                if (a.fitness > parent.fitness) {
+                    successes++;
+                }
+                nextGeneration.add(a);
+            }
+            double nextMutationRate = this.mutationRate;
+            double nextCrossoverRate = this.crossoverRate;
+            if (rateControl == RateControl.SUCCESS_RULE) {
                 /*
-                 * Apply mutation to the offspring
+                 * Adapt the rates to the ratio of successful offspring and the diversity of the new generation
                  */
-                nextGeneration.add(a.mutate(0.01));
+                double diversity = (double) nextGeneration.stream().map(Chromosome::getPhenotype).distinct().count() / populationSize;
+                nextMutationRate = diversity < MIN_DIVERSITY || successes < populationSize / 5d
+                        ? this.mutationRate * ADAPTATION_FACTOR
+                        : this.mutationRate / Math.pow(ADAPTATION_FACTOR, 0.25);
+                nextMutationRate = Math.min(MAX_MUTATION_RATE, Math.max(MIN_MUTATION_RATE, nextMutationRate));
+                nextCrossoverRate = Math.min(1d, diversity / MIN_DIVERSITY);
             }
-            return new Population(++this.generation, nextGeneration);
+            return new Population(++this.generation, nextGeneration, nextMutationRate, nextCrossoverRate);
+        }
+    }
+
+    /**
+     * Class representing a population which evolves in steps instead of generations. Each step creates one offspring
+     * from two fitness proportionally selected parents, which replaces the worst individual unless it is worse or
+     * already part of the population.
+     * <p>
+     * The fitness is indexed twice: a Fenwick tree over the fitness of the slots provides the prefix sums for the fitness
+     * proportional selection and a sorted set of the slots provides the worst and best individual, so a step takes
+     * O(log n) instead of building a mating pool.
+     */
+    private static class SteadyStatePopulation {
+
+        /**
+         * The individuals by slot
+         */
+        private final Chromosome[] individuals = new Chromosome[Population.populationSize];
+
+        /**
+         * The Fenwick tree over the fitness of the slots, 1-based
+         */
+        private final double[] fitnessSums = new double[Population.populationSize + 1];
+
+        /**
+         * The slots ordered by the fitness of their individuals, the worst first
+         */
+        private final TreeSet<Integer> ranking = new TreeSet<>(Comparator.comparingDouble((Integer slot) -> this.individuals[slot].fitness)
+                .thenComparing(Comparator.naturalOrder()));
+
+        /**
+         * The phenotypes of the population, used for rejecting duplicates
+         */
+        private final Set<String> phenotypes = new HashSet<>();
+
+        /**
+         * The number of executed steps
+         */
+        private long steps;
+
+        /**
+         * Creates a random population of distinct individuals, duplicates are regenerated as the rejection of duplicate
+         * offspring relies on every phenotype being present only once
+         */
+        private SteadyStatePopulation() {
+            int i = 0;
+            while (i < this.individuals.length) {
+                Chromosome individual = Chromosome.createRandomChromosome(Population.MUTATION_RATE);
+                if (this.phenotypes.add(individual.getPhenotype())) {
+                    this.individuals[i] = individual;
+                    this.ranking.add(i);
+                    addFitness(i, individual.fitness);
+                    i++;
+                }
+            }
+        }
+
+        /**
+         * Creates an offspring and lets it replace the worst individual
+         */
+        void step() {
+            this.steps++;
+            Chromosome a = select();
+            Chromosome b = select();
+            Chromosome offspring = a.crossover(b).mutate(Population.MUTATION_RATE);
+            int worst = this.ranking.first();
+            if (offspring.fitness < this.individuals[worst].fitness || this.phenotypes.contains(offspring.getPhenotype())) {
+                return;
+            }
+            boolean improved = offspring.fitness > getBest().fitness;
+            this.ranking.remove(worst);
+            this.phenotypes.remove(this.individuals[worst].getPhenotype());
+            addFitness(worst, offspring.fitness - this.individuals[worst].fitness);
+            this.individuals[worst] = offspring;
+            this.phenotypes.add(offspring.getPhenotype());
+            this.ranking.add(worst);
+            if (improved && Population.verbose) {
+                System.out.println("Step: " + this.steps + " Fitness: " + offspring.getFitness() + " Best: " + offspring.getPhenotype());
+            }
+        }
+
+        /**
+         * Selects an individual with a probability proportional to its fitness by descending the Fenwick tree
+         *
+         * @return The selected individual
+         */
+        private Chromosome select() {
+            double total = 0d;
+            for (int i = this.individuals.length; i > 0; i -= i & -i) {
+                total += this.fitnessSums[i];
+            }
+            if (total <= 0d) {
+                return this.individuals[ThreadLocalRandom.current().nextInt(this.individuals.length)];
+            }
+            double remaining = ThreadLocalRandom.current().nextDouble() * total;
+            int slot = 0;
+            for (int step = Integer.highestOneBit(this.individuals.length); step > 0; step >>= 1) {
+                if (slot + step <= this.individuals.length && this.fitnessSums[slot + step] <= remaining) {
+                    slot += step;
+                    remaining -= this.fitnessSums[slot];
+                }
+            }
+            return this.individuals[Math.min(slot, this.individuals.length - 1)];
+        }
+
+        /**
+         * Adds to the fitness of a slot in the Fenwick tree
+         *
+         * @param slot  The slot
+         * @param delta The fitness to add
+         */
+        private void addFitness(int slot, double delta) {
+            for (int i = slot + 1; i < this.fitnessSums.length; i += i & -i) {
+                this.fitnessSums[i] += delta;
+            }
+        }
+
+        /**
+         * Returns the best individual
+         *
+         * @return The best individual
+         */
+        Chromosome getBest() {
+            return this.individuals[this.ranking.last()];
         }
     }
 
@@ -137,27 +454,36 @@ public class BasicGeneticAlgorithmExample {
          */
         private final double fitness;
 
+        /**
+         * The mutation rate this individual was created with, inherited by its offspring if the rates are self-adaptive
+         */
+        private final double mutationRate;
+
         /**
          * Creates a new chromosome with the given genetic material
          *
-         * @param genes The char sequence
+         * @param genes        The char sequence
+         * @param mutationRate The mutation rate the chromosome was created with
          */
-        private Chromosome(char[] genes) {
+        private Chromosome(char[] genes, double mutationRate) {
             this.genes = genes;
+            this.mutationRate = mutationRate;
             this.fitness = computeFitness();
         }
 
         /**
          * Creates a random chromosome from the set of available allels ({@link BasicGeneticAlgorithmExample#allels})
          *
+         * @param mutationRate The initial mutation rate of the chromosome
+         *
          * @return The newly created chromosome
          */
-        static Chromosome createRandomChromosome() {
+        static Chromosome createRandomChromosome(double mutationRate) {
             char[] newGenes = new char[target.length()];
             for (int i = 0; i < newGenes.length; i++) {
                 newGenes[i] = allels.get(ThreadLocalRandom.current().nextInt(0, allels.size()));
             }
-            return new Chromosome(newGenes);
+            return new Chromosome(newGenes, mutationRate);
         }
 
         /**
@@ -172,7 +498,7 @@ public class BasicGeneticAlgorithmExample {
             char[] newGenes = new char[this.genes.length];
             System.arraycopy(this.genes, 0, newGenes, 0, this.genes.length / 2);
             System.arraycopy(other.genes, this.genes.length / 2, newGenes, this.genes.length / 2, this.genes.length / 2);
-            return new Chromosome(newGenes);
+            return new Chromosome(newGenes, this.mutationRate);
         }
 
         /**
@@ -180,7 +506,7 @@ public class BasicGeneticAlgorithmExample {
          *
          * @param mutationRate The probability to vary a gene
          *
-         * @return A newly created gene
+         * @return A newly created gene, carrying the mutation rate
          */
         Chromosome mutate(double mutationRate) {
             char[] newGenes = new char[this.genes.length];
@@ -191,7 +517,7 @@ public class BasicGeneticAlgorithmExample {
                     newGenes[i] = this.genes[i];
                 }
             }
-            return new Chromosome(newGenes);
+            return new Chromosome(newGenes, mutationRate);
         }
 
         /**
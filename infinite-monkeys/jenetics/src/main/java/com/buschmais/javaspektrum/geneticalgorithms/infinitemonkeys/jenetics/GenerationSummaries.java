@@ -0,0 +1,139 @@
+package com.buschmais.javaspektrum.geneticalgorithms.infinitemonkeys.jenetics;
+
+import io.jenetics.Gene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionDurations;
+import io.jenetics.engine.EvolutionResult;
+
+import java.util.function.Consumer;
+
+/**
+ * Consumer of an evolution stream which keeps only the best phenotype and the summaries of the last generations in a
+ * ring buffer of fixed size. In contrast to collecting the evolution results, which reference whole populations, the
+ * memory used stays the same no matter how many generations are evolved.
+ *
+ * @param <G> The gene type
+ *
+ * @author Stephan Pirnbaum
+ */
+class GenerationSummaries<G extends Gene<?, G>> implements Consumer<EvolutionResult<G, Double>> {
+
+    /**
+     * The generations of the summaries
+     */
+    private final long[] generations;
+
+    /**
+     * The best fitness of the summarized generations
+     */
+    private final double[] bestFitness;
+
+    /**
+     * The mean fitness of the summarized generations
+     */
+    private final double[] meanFitness;
+
+    /**
+     * The evaluation durations of the summarized generations in nanoseconds
+     */
+    private final long[] evaluationDurations;
+
+    /**
+     * The evolve durations of the summarized generations in nanoseconds
+     */
+    private final long[] evolveDurations;
+
+    /**
+     * The number of consumed generations, the next summary is written to this index modulo the capacity
+     */
+    private long count;
+
+    /**
+     * The best phenotype found so far
+     */
+    private Phenotype<G, Double> best;
+
+    /**
+     * The generation the best phenotype was found in
+     */
+    private long bestGeneration;
+
+    /**
+     * Creates the consumer
+     *
+     * @param capacity The number of generations to keep the summaries of
+     */
+    GenerationSummaries(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.generations = new long[capacity];
+        this.bestFitness = new double[capacity];
+        this.meanFitness = new double[capacity];
+        this.evaluationDurations = new long[capacity];
+        this.evolveDurations = new long[capacity];
+    }
+
+    @Override
+    public void accept(EvolutionResult<G, Double> result) {
+        Phenotype<G, Double> phenotype = result.getBestPhenotype();
+        if (this.best == null || phenotype.getFitness() > this.best.getFitness()) {
+            this.best = phenotype;
+            this.bestGeneration = result.getGeneration();
+        }
+        int index = (int) (this.count++ % this.generations.length);
+        EvolutionDurations durations = result.getDurations();
+        this.generations[index] = result.getGeneration();
+        this.bestFitness[index] = phenotype.getFitness();
+        this.meanFitness[index] = result.getPopulation().stream().mapToDouble(Phenotype::getFitness).average().orElse(Double.NaN);
+        this.evaluationDurations[index] = durations.getEvaluationDuration().toNanos();
+        this.evolveDurations[index] = durations.getEvolveDuration().toNanos();
+    }
+
+    /**
+     * Returns the best phenotype found so far
+     *
+     * @return The best phenotype, <code>null</code> if nothing was consumed yet
+     */
+    Phenotype<G, Double> getBest() {
+        return this.best;
+    }
+
+    /**
+     * Returns the generation the best phenotype was found in
+     *
+     * @return The generation
+     */
+    long getBestGeneration() {
+        return this.bestGeneration;
+    }
+
+    /**
+     * Returns the last consumed generation
+     *
+     * @return The generation, 0 if nothing was consumed yet
+     */
+    long getLastGeneration() {
+        return this.count == 0 ? 0 : this.generations[(int) ((this.count - 1) % this.generations.length)];
+    }
+
+    /**
+     * Returns the summaries of the kept generations, the oldest first
+     *
+     * @return One line per generation
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Generation;Best Fitness;Mean Fitness;Evaluation [ms];Evolve [ms]");
+        for (long i = Math.max(0, this.count - this.generations.length); i < this.count; i++) {
+            int index = (int) (i % this.generations.length);
+            builder.append(System.lineSeparator())
+                    .append(this.generations[index]).append(';')
+                    .append(this.bestFitness[index]).append(';')
+                    .append(this.meanFitness[index]).append(';')
+                    .append(this.evaluationDurations[index] / 1_000_000d).append(';')
+                    .append(this.evolveDurations[index] / 1_000_000d);
+        }
+        return builder.toString();
+    }
+}
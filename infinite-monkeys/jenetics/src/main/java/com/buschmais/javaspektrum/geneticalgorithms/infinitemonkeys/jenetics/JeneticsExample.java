@@ -1,11 +1,20 @@
 package com.buschmais.javaspektrum.geneticalgorithms.infinitemonkeys.jenetics;
 
+import com.buschmais.javaspektrum.geneticalgorithms.common.adaptive.AdaptiveAlterer;
+import com.buschmais.javaspektrum.geneticalgorithms.common.steadystate.SteadyStateEngine;
+import com.buschmais.javaspektrum.geneticalgorithms.common.tuning.Configuration;
+import com.buschmais.javaspektrum.geneticalgorithms.common.tuning.ParameterRace;
+import com.buschmais.javaspektrum.geneticalgorithms.common.tuning.Trial;
 import io.jenetics.*;
 import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
 import io.jenetics.engine.Limits;
 import io.jenetics.util.CharSeq;
 
-import java.util.stream.Collectors;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 
 /**
@@ -17,32 +26,189 @@ public class JeneticsExample {
 
     private static final String target = "to be or not to be";
 
-    public static void main(String[] args) {
-        final StringBuilder allels = new StringBuilder(" ");
-        IntStream.rangeClosed(97, 122).forEach(i -> allels.append((char) i));
+    /**
+     * The number of generations to keep the summaries of
+     */
+    private static final int SUMMARIES = 20;
+
+    /**
+     * Evolves the target string. The mode is given by the first argument:
+     * <ul>
+     * <li>none - uses fixed crossover and mutation probabilities</li>
+     * <li><code>adaptive</code> - adapts the probabilities with an {@link AdaptiveAlterer}</li>
+     * <li><code>compare &lt;runs&gt;</code> - compares the number of generations and the wall time of both</li>
+     * <li><code>stream &lt;populationSize&gt; &lt;summaries&gt;</code> - evolves a population of the given size and
+     * periodically prints the used heap instead of each generation, the summaries of the given number of last
+     * generations are kept</li>
+     * <li><code>tune &lt;seconds&gt;</code> - races population sizes, mutation probabilities and selectors against each
+     * other within the given CPU time and prints the fastest converging configuration</li>
+     * <li><code>steady-state</code> - replaces only two individuals per step using a {@link SteadyStateEngine} and prints
+     * each improvement</li>
+     * </ul>
+     * Only the best phenotype and the summaries of the last generations are kept during the run, so the used heap does not
+     * grow with the number of generations.
+     *
+     * @param args The arguments
+     *
+     * @throws InterruptedException If the tuning is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0 && "compare".equals(args[0])) {
+            int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+            compare("Fixed", runs, false);
+            compare("Adaptive", runs, true);
+        } else if (args.length > 0 && "tune".equals(args[0])) {
+            tune(Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 300));
+        } else if (args.length > 0 && "steady-state".equals(args[0])) {
+            evolveSteadyState();
+        } else if (args.length > 0 && "stream".equals(args[0])) {
+            int populationSize = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+            int capacity = args.length > 2 ? Integer.parseInt(args[2]) : SUMMARIES;
+            GenerationSummaries<CharacterGene> summaries = new GenerationSummaries<>(capacity);
+            evolve(null, populationSize, summaries, r -> {
+                if (r.getGeneration() % 10 == 0) {
+                    Runtime runtime = Runtime.getRuntime();
+                    System.out.println("Generation: " + r.getGeneration() + " Best: " + r.getBestPhenotype()
+                            + " Used heap: " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB");
+                }
+            });
+            print(summaries);
+        } else {
+            GenerationSummaries<CharacterGene> summaries = new GenerationSummaries<>(SUMMARIES);
+            AdaptiveAlterer<CharacterGene, Double> adaptiveAlterer = args.length > 0 && "adaptive".equals(args[0])
+                    ? new AdaptiveAlterer<>(SinglePointCrossover::new, Mutator::new, Optimize.MAXIMUM, 1, 0.01)
+                    : null;
+            evolve(adaptiveAlterer, 100, summaries, r -> System.out.println("Generation: " + r.getGeneration()
+                    + " Best: " + r.getBestPhenotype() + (adaptiveAlterer != null ? " " + adaptiveAlterer : "")));
+            print(summaries);
+        }
+    }
+
+    /**
+     * Prints the best phenotype and the summaries of the last generations
+     *
+     * @param summaries The summaries
+     */
+    private static void print(GenerationSummaries<CharacterGene> summaries) {
+        System.out.println("Best: " + summaries.getBest() + " found in generation " + summaries.getBestGeneration());
+        System.out.println(summaries);
+    }
+
+    /**
+     * Evolves the population step by step until the target string is found, each step replaces the worst individuals by
+     * the offspring of two parents
+     */
+    private static void evolveSteadyState() {
+        SteadyStateEngine<CharacterGene, Double> engine = SteadyStateEngine.of(Engine
+                .builder(JeneticsExample::fitness, genotype())
+                .populationSize(100)
+                .alterers(new SinglePointCrossover<>(1), new Mutator<>(0.01))
+                .build());
+        long start = System.nanoTime();
+        engine.evolve(e -> e.getBest().getFitness() < 0.9999999d,
+                p -> System.out.println("Step: " + engine.getSteps() + " Best: " + p));
+        System.out.println(engine + " Equivalent generations: " + engine.getEquivalentGenerations()
+                + " Time: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Races configurations of the engine against each other and prints the one reaching the target string in the least
+     * CPU time
+     *
+     * @param budget The CPU time shared by all runs
+     *
+     * @throws InterruptedException If the race is interrupted
+     */
+    private static void tune(Duration budget) throws InterruptedException {
+        List<Configuration> configurations = Configuration.grid(new int[]{25, 50, 100, 200, 400},
+                new double[]{0.005, 0.01, 0.02, 0.05}, "roulette", "tournament", "linear-rank");
+        ParameterRace race = new ParameterRace(configurations, Trial.of(
+                c -> Engine.builder(JeneticsExample::fitness, genotype())
+                        .populationSize(c.getPopulationSize())
+                        .alterers(new SinglePointCrossover<>(1), new Mutator<>(c.getMutationProbability()))
+                        .selector(c.<CharacterGene, Double>selector()),
+                r -> r.getBestFitness() >= 0.9999999d))
+                .budget(budget, Duration.ofSeconds(10));
+        List<ParameterRace.Candidate> ranking = race.race();
+        ranking.forEach(System.out::println);
+        System.out.println("Rounds: " + race.getRounds() + " CPU time: " + race.getUsedBudget().getSeconds() + "s");
+        if (race.getRounds() == 0) {
+            System.out.println("The budget doesn't suffice for a complete round");
+        } else {
+            System.out.println("Fastest converging configuration: " + ranking.get(0).getConfiguration());
+        }
+    }
 
+    /**
+     * Evolves the target string several times and prints the mean number of generations and wall time
+     *
+     * @param name     The name of the configuration
+     * @param runs     The number of runs
+     * @param adaptive Whether to adapt the probabilities
+     */
+    private static void compare(String name, int runs, boolean adaptive) {
+        long generations = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            GenerationSummaries<CharacterGene> summaries = new GenerationSummaries<>(1);
+            evolve(adaptive ? new AdaptiveAlterer<>(SinglePointCrossover::new, Mutator::new, Optimize.MAXIMUM, 1, 0.01) : null,
+                    100, summaries, r -> {
+                    });
+            generations += summaries.getLastGeneration();
+        }
+        System.out.println(name + ": " + (double) generations / runs + " generations, "
+                + (System.nanoTime() - start) / 1_000_000d / runs + " ms per run");
+    }
+
+    /**
+     * Evolves the population until the target string is found
+     *
+     * @param adaptiveAlterer The alterer adapting the probabilities, <code>null</code> for fixed probabilities
+     * @param populationSize  The population size
+     * @param summaries       Keeps the best phenotype and the summaries of the last generations
+     * @param progress        Is notified about every generation
+     */
+    private static void evolve(AdaptiveAlterer<CharacterGene, Double> adaptiveAlterer, int populationSize,
+                               GenerationSummaries<CharacterGene> summaries, Consumer<EvolutionResult<CharacterGene, Double>> progress) {
         /*
-         * Specify the genetic structure: number of chromosomes, allowed allels, and length
+         * Choose the alterer, the adaptive one needs to observe the fitness of the offspring
          */
-        Genotype<CharacterGene> genotype = Genotype.of(
-                new CharacterChromosome(new CharSeq(allels), 18)
-        );
+        Function<Genotype<CharacterGene>, Double> fitness = JeneticsExample::fitness;
+        Alterer<CharacterGene, Double> alterer = Alterer.<CharacterGene, Double>of(new SinglePointCrossover<>(1), new Mutator<>(0.01));
+        if (adaptiveAlterer != null) {
+            fitness = adaptiveAlterer.fitness(fitness);
+            alterer = adaptiveAlterer;
+        }
         /*
          * Create the evolution engine
          */
         Engine<CharacterGene, Double> engine = Engine
-                .builder(JeneticsExample::fitness, genotype)
-                .populationSize(100)
-                .alterers(new SinglePointCrossover<>(1), new Mutator<>(0.01))
+                .builder(fitness, genotype())
+                .populationSize(populationSize)
+                .alterers(alterer)
                 .selector(new RouletteWheelSelector<>())
                 .build();
         /*
-         * Evolve the population until the solution is found. Take notice of double precision.
+         * Evolve the population until the solution is found. Take notice of double precision. The results are consumed
+         * one by one instead of being collected, so the populations of past generations can be garbage collected.
          */
         engine.stream()
                 .limit(Limits.byFitnessThreshold(0.9999999d))
-                .peek(g -> System.out.println("Generation: " + g.getGeneration() + " Best: " + g.getBestPhenotype()))
-                .collect(Collectors.toList());
+                .peek(progress)
+                .forEach(summaries);
+    }
+
+    /**
+     * Specifies the genetic structure: number of chromosomes, allowed allels, and length
+     *
+     * @return The genotype
+     */
+    private static Genotype<CharacterGene> genotype() {
+        final StringBuilder allels = new StringBuilder(" ");
+        IntStream.rangeClosed(97, 122).forEach(i -> allels.append((char) i));
+        return Genotype.of(
+                new CharacterChromosome(new CharSeq(allels), 18)
+        );
     }
 
     /**
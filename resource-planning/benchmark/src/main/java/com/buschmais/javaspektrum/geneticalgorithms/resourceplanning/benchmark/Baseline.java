@@ -0,0 +1,137 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A stored summary of a previous benchmark run, used to detect regressions. Runs are matched by algorithm, instance,
+ * threads and population size. Throughput may not drop, peak heap and time to quality may not rise by more than the
+ * tolerance. A run not completing any generation anymore is a regression, a baseline run without any generation is not
+ * compared.
+ *
+ * @author Stephan Pirnbaum
+ */
+class Baseline {
+
+    /**
+     * Time differences below this number of milliseconds are considered to be noise
+     */
+    private static final long MIN_TIME_DIFFERENCE_MILLIS = 50;
+
+    /**
+     * The number of leading columns identifying a run
+     */
+    private static final int KEY_COLUMNS = 6;
+
+    /**
+     * The summary rows by the key of the run, every row as value by column name
+     */
+    private final Map<String, Map<String, String>> runs = new HashMap<>();
+
+    /**
+     * The allowed relative deviation
+     */
+    private final double tolerance;
+
+    /**
+     * Loads a baseline from a summary CSV file
+     *
+     * @param file      The summary CSV file
+     * @param tolerance The allowed relative deviation, e.g. 0.1 for 10%
+     *
+     * @throws IOException If the file can't be read
+     */
+    Baseline(Path file, double tolerance) throws IOException {
+        this.tolerance = tolerance;
+        List<String> lines = Files.readAllLines(file);
+        String header = lines.get(0);
+        for (String line : lines.subList(1, lines.size())) {
+            if (!line.trim().isEmpty()) {
+                Map<String, String> run = parse(header, line);
+                this.runs.put(key(line), run);
+            }
+        }
+    }
+
+    /**
+     * Compares a summary row with the baseline
+     *
+     * @param header The header of the summary
+     * @param row    The summary row
+     *
+     * @return A description of every regression, empty if there is none or the run is not part of the baseline
+     */
+    List<String> compare(String header, String row) {
+        List<String> regressions = new ArrayList<>();
+        Map<String, String> baseline = this.runs.get(key(row));
+        if (baseline == null) {
+            return regressions;
+        }
+        Map<String, String> current = parse(header, row);
+        if (Measurement.NOT_AVAILABLE.equals(baseline.get("evaluationsPerSecond"))) {
+            return regressions;
+        }
+        if (Measurement.NOT_AVAILABLE.equals(current.get("evaluationsPerSecond"))) {
+            regressions.add("no generation completed anymore");
+            return regressions;
+        }
+        double baselineThroughput = Double.parseDouble(baseline.get("evaluationsPerSecond"));
+        double currentThroughput = Double.parseDouble(current.get("evaluationsPerSecond"));
+        if (currentThroughput < baselineThroughput * (1 - this.tolerance)) {
+            regressions.add("throughput dropped from " + baselineThroughput + " to " + currentThroughput + " evaluations/s");
+        }
+        long baselineHeap = Long.parseLong(baseline.get("peakHeapBytes"));
+        long currentHeap = Long.parseLong(current.get("peakHeapBytes"));
+        if (currentHeap > baselineHeap * (1 + this.tolerance)) {
+            regressions.add("peak heap rose from " + baselineHeap + " to " + currentHeap + " bytes");
+        }
+        for (Map.Entry<String, String> column : current.entrySet()) {
+            if (column.getKey().startsWith("ttq_") && baseline.containsKey(column.getKey())) {
+                long baselineTime = Long.parseLong(baseline.get(column.getKey()));
+                long currentTime = Long.parseLong(column.getValue());
+                if (baselineTime >= 0 && currentTime < 0) {
+                    regressions.add("quality " + column.getKey().substring(4) + " not reached anymore");
+                } else if (baselineTime >= 0 && currentTime > baselineTime * (1 + this.tolerance) && currentTime - baselineTime > MIN_TIME_DIFFERENCE_MILLIS) {
+                    regressions.add("time to quality " + column.getKey().substring(4) + " rose from " + baselineTime + " to " + currentTime + " ms");
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Extracts the key identifying the run from a summary row
+     *
+     * @param row The summary row
+     *
+     * @return The key
+     */
+    private static String key(String row) {
+        String[] values = row.split(",");
+        return String.join(",", Arrays.copyOf(values, KEY_COLUMNS));
+    }
+
+    /**
+     * Parses a summary row
+     *
+     * @param header The header of the summary
+     * @param row    The summary row
+     *
+     * @return The values by column name
+     */
+    private static Map<String, String> parse(String header, String row) {
+        String[] columns = header.split(",");
+        String[] values = row.split(",");
+        Map<String, String> parsed = new HashMap<>();
+        for (int i = 0; i < columns.length && i < values.length; i++) {
+            parsed.put(columns[i], values[i]);
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,81 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Tracks the peak of the total heap usage by polling it in a background thread. The peak usages of the single memory
+ * pools can't be summed up for this, the pools reach their peaks at different times.
+ *
+ * @author Stephan Pirnbaum
+ */
+class HeapSampler implements AutoCloseable {
+
+    /**
+     * The time in milliseconds between two samples
+     */
+    private static final long INTERVAL_MILLIS = 10;
+
+    /**
+     * The source of the heap usage
+     */
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    /**
+     * The thread polling the heap usage
+     */
+    private final Thread thread;
+
+    /**
+     * The highest heap usage sampled in bytes
+     */
+    private volatile long peak;
+
+    /**
+     * Creates the sampler and starts polling
+     */
+    HeapSampler() {
+        this.thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                sample();
+                try {
+                    Thread.sleep(INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "heap-sampler");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Samples the heap usage
+     *
+     * @return The heap currently used in bytes
+     */
+    long sample() {
+        long used = this.memory.getHeapMemoryUsage().getUsed();
+        synchronized (this) {
+            this.peak = Math.max(this.peak, used);
+        }
+        return used;
+    }
+
+    /**
+     * Returns the highest heap usage sampled so far
+     *
+     * @return The peak heap usage in bytes
+     */
+    long getPeak() {
+        return this.peak;
+    }
+
+    /**
+     * Stops polling
+     */
+    @Override
+    public void close() {
+        this.thread.interrupt();
+    }
+}
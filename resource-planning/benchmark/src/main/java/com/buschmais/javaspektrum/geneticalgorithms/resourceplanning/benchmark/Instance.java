@@ -0,0 +1,125 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.benchmark;
+
+import java.util.Random;
+
+/**
+ * A generated resource planning problem instance. Instances are reproducible, the same parameters always yield the
+ * same resources and tasks.
+ *
+ * @author Stephan Pirnbaum
+ */
+class Instance {
+
+    /**
+     * The items per minute of the default resources, repeated for larger instances
+     */
+    private static final long[] ITEMS_PER_MINUTE_CONFIG = {10, 10, 10, 10, 10, 10, 25, 25, 25, 25, 30, 30, 30, 50, 50, 50, 50, 100, 100, 250};
+
+    /**
+     * The number of tasks
+     */
+    private final int tasks;
+
+    /**
+     * The number of resources
+     */
+    private final int resources;
+
+    /**
+     * The distribution of the workloads
+     */
+    private final WorkloadDistribution distribution;
+
+    /**
+     * The seed for drawing the workloads
+     */
+    private final long seed;
+
+    /**
+     * Creates an instance
+     *
+     * @param tasks        The number of tasks
+     * @param resources    The number of resources
+     * @param distribution The distribution of the workloads
+     * @param seed         The seed for drawing the workloads
+     */
+    Instance(int tasks, int resources, WorkloadDistribution distribution, long seed) {
+        this.tasks = tasks;
+        this.resources = resources;
+        this.distribution = distribution;
+        this.seed = seed;
+    }
+
+    /**
+     * Parses an instance of the form <code>&lt;tasks&gt;x&lt;resources&gt;</code>
+     *
+     * @param size         The size specification
+     * @param distribution The distribution of the workloads
+     * @param seed         The seed for drawing the workloads
+     *
+     * @return The instance
+     */
+    static Instance parse(String size, WorkloadDistribution distribution, long seed) {
+        String[] parts = size.trim().split("x");
+        return new Instance(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), distribution, seed);
+    }
+
+    /**
+     * Generates the items per minute of the resources by repeating the default resources
+     *
+     * @return The items per minute for every resource
+     */
+    long[] itemsPerMinute() {
+        long[] itemsPerMinute = new long[this.resources];
+        for (int i = 0; i < itemsPerMinute.length; i++) {
+            itemsPerMinute[i] = ITEMS_PER_MINUTE_CONFIG[i % ITEMS_PER_MINUTE_CONFIG.length];
+        }
+        return itemsPerMinute;
+    }
+
+    /**
+     * Generates the workloads of the tasks
+     *
+     * @return The workload for every task
+     */
+    long[] workloads() {
+        Random random = new Random(this.seed);
+        long[] workloads = new long[this.tasks];
+        for (int i = 0; i < workloads.length; i++) {
+            workloads[i] = this.distribution.next(i, random);
+        }
+        return workloads;
+    }
+
+    /**
+     * Returns the number of tasks
+     *
+     * @return The number of tasks
+     */
+    int getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the number of resources
+     *
+     * @return The number of resources
+     */
+    int getResources() {
+        return resources;
+    }
+
+    /**
+     * Returns the distribution of the workloads
+     *
+     * @return The distribution
+     */
+    WorkloadDistribution getDistribution() {
+        return distribution;
+    }
+
+    @Override
+    public String toString() {
+        return tasks + "x" + resources + " " + distribution;
+    }
+}
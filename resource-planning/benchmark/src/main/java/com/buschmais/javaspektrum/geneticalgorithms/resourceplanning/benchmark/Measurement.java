@@ -0,0 +1,198 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The measurements of one benchmark run: a summary and a sample for every generation. The quality of a generation is
+ * a number between 0 and 1 relating the best solutions found so far to a bound no schedule can exceed.
+ *
+ * @author Stephan Pirnbaum
+ */
+class Measurement {
+
+    /**
+     * The value of the summary columns which can't be computed because no generation completed
+     */
+    static final String NOT_AVAILABLE = "n/a";
+
+    /**
+     * The name of the algorithm
+     */
+    private final String algorithm;
+
+    /**
+     * The problem instance
+     */
+    private final Instance instance;
+
+    /**
+     * The number of threads used for the evaluation
+     */
+    private final int threads;
+
+    /**
+     * The population size
+     */
+    private final int population;
+
+    /**
+     * The quality levels to measure the time to reach for
+     */
+    private final double[] qualityLevels;
+
+    /**
+     * The time in milliseconds until a quality level was reached, -1 if not reached
+     */
+    private final long[] timeToQuality;
+
+    /**
+     * The samples of every generation
+     */
+    private final List<Sample> samples = new ArrayList<>();
+
+    /**
+     * Creates an empty measurement
+     *
+     * @param algorithm     The name of the algorithm
+     * @param instance      The problem instance
+     * @param threads       The number of threads used for the evaluation
+     * @param population    The population size
+     * @param qualityLevels The quality levels to measure the time to reach for
+     */
+    Measurement(String algorithm, Instance instance, int threads, int population, double[] qualityLevels) {
+        this.algorithm = algorithm;
+        this.instance = instance;
+        this.threads = threads;
+        this.population = population;
+        this.qualityLevels = qualityLevels;
+        this.timeToQuality = new long[qualityLevels.length];
+        Arrays.fill(this.timeToQuality, -1);
+    }
+
+    /**
+     * Records the sample of a generation
+     *
+     * @param generation    The generation
+     * @param elapsedMillis The time elapsed since the start of the run
+     * @param evaluations   The number of fitness evaluations since the start of the run
+     * @param quality       The quality reached
+     * @param heapUsed      The heap currently used in bytes
+     * @param peakHeap      The highest total heap usage sampled since the start of the run in bytes
+     */
+    void record(long generation, long elapsedMillis, long evaluations, double quality, long heapUsed, long peakHeap) {
+        this.samples.add(new Sample(generation, elapsedMillis, evaluations, quality, heapUsed, peakHeap));
+        for (int i = 0; i < this.qualityLevels.length; i++) {
+            if (this.timeToQuality[i] < 0 && quality >= this.qualityLevels[i]) {
+                this.timeToQuality[i] = elapsedMillis;
+            }
+        }
+    }
+
+    /**
+     * Returns the key identifying the configuration of the run, used for comparing against a baseline
+     *
+     * @return The key
+     */
+    String key() {
+        return String.join(",", this.algorithm, String.valueOf(this.instance.getTasks()), String.valueOf(this.instance.getResources()),
+                this.instance.getDistribution().name(), String.valueOf(this.threads), String.valueOf(this.population));
+    }
+
+    /**
+     * Returns the header of the summary CSV
+     *
+     * @param qualityLevels The quality levels to measure the time to reach for
+     *
+     * @return The header
+     */
+    static String summaryHeader(double[] qualityLevels) {
+        StringBuilder header = new StringBuilder("algorithm,tasks,resources,distribution,threads,population,generations,wallMillis,generationsPerSecond,evaluationsPerSecond,peakHeapBytes,finalQuality");
+        for (double level : qualityLevels) {
+            header.append(",ttq_").append(level);
+        }
+        return header.toString();
+    }
+
+    /**
+     * Returns the summary as CSV row. If no generation completed, e.g. because the first one exceeded the time limit,
+     * the columns derived from the samples are {@link #NOT_AVAILABLE}.
+     *
+     * @return The row
+     */
+    String summaryRow() {
+        StringBuilder row = new StringBuilder(key());
+        if (this.samples.isEmpty()) {
+            row.append(",0");
+            for (int i = 0; i < 5; i++) {
+                row.append(',').append(NOT_AVAILABLE);
+            }
+        } else {
+            Sample last = this.samples.get(this.samples.size() - 1);
+            double seconds = Math.max(1, last.elapsedMillis) / 1000d;
+            row.append(String.format(Locale.ROOT, ",%d,%d,%.3f,%.1f,%d,%.6f", this.samples.size(), last.elapsedMillis,
+                    this.samples.size() / seconds, last.evaluations / seconds, last.peakHeap, last.quality));
+        }
+        for (long ttq : this.timeToQuality) {
+            row.append(',').append(ttq);
+        }
+        return row.toString();
+    }
+
+    /**
+     * Returns the header of the curves CSV
+     *
+     * @return The header
+     */
+    static String curvesHeader() {
+        return "algorithm,tasks,resources,distribution,threads,population,generation,elapsedMillis,evaluations,quality,heapUsedBytes,peakHeapBytes";
+    }
+
+    /**
+     * Returns the samples as CSV rows
+     *
+     * @return The rows
+     */
+    List<String> curvesRows() {
+        List<String> rows = new ArrayList<>(this.samples.size());
+        for (Sample sample : this.samples) {
+            rows.add(key() + String.format(Locale.ROOT, ",%d,%d,%d,%.6f,%d,%d", sample.generation, sample.elapsedMillis,
+                    sample.evaluations, sample.quality, sample.heapUsed, sample.peakHeap));
+        }
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        return this.algorithm + " " + this.instance + " threads: " + this.threads + " population: " + this.population;
+    }
+
+    /**
+     * The sample of one generation
+     */
+    private static class Sample {
+
+        private final long generation;
+
+        private final long elapsedMillis;
+
+        private final long evaluations;
+
+        private final double quality;
+
+        private final long heapUsed;
+
+        private final long peakHeap;
+
+        private Sample(long generation, long elapsedMillis, long evaluations, double quality, long heapUsed, long peakHeap) {
+            this.generation = generation;
+            this.elapsedMillis = elapsedMillis;
+            this.evaluations = evaluations;
+            this.quality = quality;
+            this.heapUsed = heapUsed;
+            this.peakHeap = peakHeap;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses the command line arguments of the benchmarks, all of them given as <code>key=value</code>.
+ *
+ * @author Stephan Pirnbaum
+ */
+class Options {
+
+    /**
+     * Not instantiable
+     */
+    private Options() {
+    }
+
+    /**
+     * Parses the arguments, prints the usage and exits if an argument is not of the form <code>key=value</code>
+     *
+     * @param program The name of the program shown by the usage
+     * @param args    The arguments
+     *
+     * @return The values by key
+     */
+    static Map<String, String> parse(String program, String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                System.err.println("Invalid argument '" + arg + "'");
+                System.err.println("Usage: " + program + " [<key>=<value> ...]");
+                System.exit(1);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,84 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.benchmark;
+
+import com.buschmais.javaspektrum.geneticalgorithms.common.tuning.Configuration;
+import com.buschmais.javaspektrum.geneticalgorithms.common.tuning.ParameterRace;
+import com.buschmais.javaspektrum.geneticalgorithms.common.tuning.Trial;
+import com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.singleobjective.ResourcePlanningGA;
+import io.jenetics.IntegerGene;
+import io.jenetics.Mutator;
+import io.jenetics.SinglePointCrossover;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tunes the population size, the mutation probability and the selector of {@link ResourcePlanningGA} per problem
+ * instance by racing the configurations against each other with a {@link ParameterRace}. A configuration reaches the
+ * target if the ratio between the best possible fitness and the best fitness of a generation reaches the target
+ * quality.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class ParameterTuning {
+
+    /**
+     * Executes the tuning. All arguments are optional and given as <code>key=value</code>:
+     * <ul>
+     * <li><code>instances</code> - comma separated instance sizes as &lt;tasks&gt;x&lt;resources&gt;, default 100x20,1000x100</li>
+     * <li><code>distribution</code> - the workload distribution, one of {@link WorkloadDistribution}, default CYCLIC</li>
+     * <li><code>seed</code> - the seed for generating the workloads, default 42</li>
+     * <li><code>populations</code> - comma separated population sizes, default 100,250,500,1000</li>
+     * <li><code>mutations</code> - comma separated mutation probabilities, default 0.005,0.01,0.02,0.05</li>
+     * <li><code>selectors</code> - comma separated selectors out of {@link Configuration#SELECTORS}, default
+     * roulette,tournament,linear-rank</li>
+     * <li><code>quality</code> - the target quality, default 0.99</li>
+     * <li><code>budget</code> - the CPU time in seconds shared by all runs of an instance, default 600</li>
+     * <li><code>runBudget</code> - the CPU time in seconds after which a run is stopped, default 30</li>
+     * <li><code>threads</code> - the number of runs executed in parallel, default the number of cores</li>
+     * <li><code>minRounds</code> - the number of rounds before configurations are dropped, default 5</li>
+     * <li><code>maxRounds</code> - the maximum number of rounds, default 50</li>
+     * <li><code>alpha</code> - the significance level for dropping configurations, default 0.05</li>
+     * </ul>
+     *
+     * @param args The arguments
+     *
+     * @throws InterruptedException If the tuning is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = Options.parse("ParameterTuning", args);
+        WorkloadDistribution distribution = WorkloadDistribution.valueOf(options.getOrDefault("distribution", "CYCLIC"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        List<Configuration> configurations = Configuration.grid(
+                Arrays.stream(options.getOrDefault("populations", "100,250,500,1000").split(",")).mapToInt(Integer::parseInt).toArray(),
+                Arrays.stream(options.getOrDefault("mutations", "0.005,0.01,0.02,0.05").split(",")).mapToDouble(Double::parseDouble).toArray(),
+                options.getOrDefault("selectors", "roulette,tournament,linear-rank").split(","));
+        double quality = Double.parseDouble(options.getOrDefault("quality", "0.99"));
+        StringBuilder results = new StringBuilder();
+        for (String size : options.getOrDefault("instances", "100x20,1000x100").split(",")) {
+            Instance instance = Instance.parse(size, distribution, seed);
+            ResourcePlanningGA ga = ResourcePlanningGA.of(instance.itemsPerMinute(), instance.workloads());
+            double optimum = ga.computeBestPossibleFitness();
+            ParameterRace race = new ParameterRace(configurations, Trial.<IntegerGene, Double>of(
+                    c -> ga.engineBuilder(ga::fitness)
+                            .populationSize(c.getPopulationSize())
+                            .alterers(new SinglePointCrossover<>(1), new Mutator<>(c.getMutationProbability()))
+                            .selector(c.<IntegerGene, Double>selector()),
+                    r -> optimum / r.getBestFitness() >= quality))
+                    .budget(Duration.ofSeconds(Long.parseLong(options.getOrDefault("budget", "600"))),
+                            Duration.ofSeconds(Long.parseLong(options.getOrDefault("runBudget", "30"))))
+                    .threads(Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))))
+                    .rounds(Integer.parseInt(options.getOrDefault("minRounds", "5")), Integer.parseInt(options.getOrDefault("maxRounds", "50")))
+                    .alpha(Double.parseDouble(options.getOrDefault("alpha", "0.05")));
+            List<ParameterRace.Candidate> ranking = race.race();
+            System.out.println("Instance " + instance + ": " + race.getRounds() + " rounds, CPU time " + race.getUsedBudget().getSeconds() + "s");
+            ranking.forEach(c -> System.out.println("  " + c));
+            results.append(instance).append(": ")
+                    .append(race.getRounds() > 0 ? ranking.get(0) : "budget doesn't suffice for a complete round")
+                    .append(System.lineSeparator());
+        }
+        System.out.println("Fastest converging configurations");
+        System.out.print(results);
+    }
+}
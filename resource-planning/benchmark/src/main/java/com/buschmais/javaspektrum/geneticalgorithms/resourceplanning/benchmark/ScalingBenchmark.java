@@ -0,0 +1,261 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.benchmark;
+
+import com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.multiobjective.HypervolumeIndicator;
+import com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.multiobjective.ResourcePlanningMOOGA;
+import com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.singleobjective.ResourcePlanningGA;
+import io.jenetics.IntegerGene;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.Limits;
+import io.jenetics.ext.moea.Vec;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Macro benchmark measuring how {@link ResourcePlanningGA} and {@link ResourcePlanningMOOGA} scale with the problem
+ * size and the number of threads. For every combination of instance, algorithm and thread count a run is executed and
+ * its throughput, time to quality and heap usage are written to CSV files. The peak heap is the highest total heap
+ * usage sampled every 10 milliseconds during the run, so short spikes between two samples may be missed.
+ * <p>
+ * The default instances end at 10000 tasks. Instances with 1000000 tasks can be given explicitly, but they aren't
+ * practical with the default population of 500: every genotype holds one {@link io.jenetics.IntegerGene} object per
+ * task, so a single generation with its offspring keeps around 10<sup>9</sup> gene objects alive, which takes tens of
+ * gigabytes of heap.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class ScalingBenchmark {
+
+    /**
+     * Executes the benchmark. All arguments are optional and given as <code>key=value</code>:
+     * <ul>
+     * <li><code>instances</code> - comma separated instance sizes as &lt;tasks&gt;x&lt;resources&gt;, default 100x20,1000x100,10000x1000</li>
+     * <li><code>distribution</code> - the workload distribution, one of {@link WorkloadDistribution}, default CYCLIC</li>
+     * <li><code>algorithms</code> - comma separated, ga and/or mooga, default ga,mooga</li>
+     * <li><code>threads</code> - comma separated thread counts, default 1 and the number of cores</li>
+     * <li><code>population</code> - the population size, default 500</li>
+     * <li><code>generations</code> - the number of generations per run, default 200</li>
+     * <li><code>timeLimit</code> - the maximum duration of a run in seconds, default 60</li>
+     * <li><code>warmup</code> - the number of generations executed before measuring, default 20</li>
+     * <li><code>qualities</code> - comma separated quality levels to measure the time to, default 0.5,0.8,0.9,0.95,0.99</li>
+     * <li><code>seed</code> - the seed for generating the workloads, default 42</li>
+     * <li><code>output</code> - the prefix of the CSV files, default scaling</li>
+     * <li><code>baseline</code> - a summary CSV file of a previous run to compare against</li>
+     * <li><code>tolerance</code> - the relative deviation from the baseline considered to be a regression, default 0.1</li>
+     * </ul>
+     * The process exits with status 1 if a regression against the baseline is detected.
+     *
+     * @param args The arguments
+     *
+     * @throws IOException If reading the baseline or writing the results fails
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = Options.parse("ScalingBenchmark", args);
+        Settings settings = new Settings(options);
+        WorkloadDistribution distribution = WorkloadDistribution.valueOf(options.getOrDefault("distribution", "CYCLIC"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        List<Instance> instances = Arrays.stream(options.getOrDefault("instances", "100x20,1000x100,10000x1000").split(","))
+                .map(s -> Instance.parse(s, distribution, seed))
+                .collect(Collectors.toList());
+        List<String> algorithms = Arrays.asList(options.getOrDefault("algorithms", "ga,mooga").split(","));
+        int[] threads = Arrays.stream(options.getOrDefault("threads", "1," + Runtime.getRuntime().availableProcessors()).split(","))
+                .mapToInt(Integer::parseInt)
+                .distinct()
+                .toArray();
+        String output = options.getOrDefault("output", "scaling");
+        Baseline baseline = options.containsKey("baseline")
+                ? new Baseline(Paths.get(options.get("baseline")), Double.parseDouble(options.getOrDefault("tolerance", "0.1")))
+                : null;
+
+        String header = Measurement.summaryHeader(settings.qualityLevels);
+        int regressions = 0;
+        try (PrintWriter summary = new PrintWriter(Files.newBufferedWriter(Paths.get(output + "-summary.csv")));
+             PrintWriter curves = new PrintWriter(Files.newBufferedWriter(Paths.get(output + "-curves.csv")))) {
+            summary.println(header);
+            curves.println(Measurement.curvesHeader());
+            for (Instance instance : instances) {
+                for (String algorithm : algorithms) {
+                    for (int threadCount : threads) {
+                        Measurement measurement = "mooga".equals(algorithm)
+                                ? runMOOGA(instance, threadCount, settings)
+                                : runGA(instance, threadCount, settings);
+                        String row = measurement.summaryRow();
+                        summary.println(row);
+                        measurement.curvesRows().forEach(curves::println);
+                        summary.flush();
+                        curves.flush();
+                        System.out.println(measurement + ": " + row);
+                        if (baseline != null) {
+                            for (String regression : baseline.compare(header, row)) {
+                                System.out.println("REGRESSION " + measurement + ": " + regression);
+                                regressions++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " regressions detected");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the single-objective GA, the quality is the ratio between the best possible fitness and the best fitness
+     *
+     * @param instance The problem instance
+     * @param threads  The number of threads
+     * @param settings The run settings
+     *
+     * @return The measurement
+     */
+    private static Measurement runGA(Instance instance, int threads, Settings settings) {
+        ResourcePlanningGA ga = ResourcePlanningGA.of(instance.itemsPerMinute(), instance.workloads());
+        double optimum = ga.computeBestPossibleFitness();
+        LongAdder evaluations = new LongAdder();
+        ForkJoinPool executor = new ForkJoinPool(threads);
+        try {
+            Engine<IntegerGene, Double> engine = ga
+                    .engineBuilder(g -> {
+                        evaluations.increment();
+                        return ga.fitness(g);
+                    })
+                    .executor(executor)
+                    .populationSize(settings.population)
+                    .build();
+            return measure(new Measurement("ga", instance, threads, settings.population, settings.qualityLevels),
+                    engine, () -> r -> optimum / r.getBestFitness(), evaluations, settings);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs the multi-objective GA, the quality is the ratio between the hypervolume of all non-dominated solutions
+     * found and the hypervolume of the ideal point
+     *
+     * @param instance The problem instance
+     * @param threads  The number of threads
+     * @param settings The run settings
+     *
+     * @return The measurement
+     */
+    private static Measurement runMOOGA(Instance instance, int threads, Settings settings) {
+        ResourcePlanningMOOGA ga = ResourcePlanningMOOGA.of(instance.itemsPerMinute(), instance.workloads());
+        double[] reference = ga.computeReferencePoint();
+        double[] ideal = ga.computeIdealPoint();
+        double bound = (reference[0] - ideal[0]) * (reference[1] - ideal[1]);
+        LongAdder evaluations = new LongAdder();
+        ForkJoinPool executor = new ForkJoinPool(threads);
+        try {
+            Engine<IntegerGene, Vec<double[]>> engine = ga
+                    .engineBuilder(g -> {
+                        evaluations.increment();
+                        return ga.fitness(g);
+                    })
+                    .executor(executor)
+                    .populationSize(settings.population)
+                    .build();
+            return measure(new Measurement("mooga", instance, threads, settings.population, settings.qualityLevels),
+                    engine, () -> {
+                        HypervolumeIndicator hypervolume = new HypervolumeIndicator(reference);
+                        return r -> {
+                            hypervolume.accept(r);
+                            return hypervolume.getHypervolume() / bound;
+                        };
+                    }, evaluations, settings);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Warms up the engine and measures a run
+     *
+     * @param measurement The measurement to record the samples in
+     * @param engine      The engine
+     * @param quality     Supplies the function computing the quality of a generation, called after the warm up
+     * @param evaluations The counter of fitness evaluations
+     * @param settings    The run settings
+     * @param <C>         The fitness type
+     *
+     * @return The measurement
+     */
+    private static <C extends Comparable<? super C>> Measurement measure(Measurement measurement, Engine<IntegerGene, C> engine,
+                                                                          Supplier<ToDoubleFunction<EvolutionResult<IntegerGene, C>>> quality,
+                                                                          LongAdder evaluations, Settings settings) {
+        engine.stream().limit(settings.warmup).forEach(r -> {
+        });
+        System.gc();
+        evaluations.reset();
+        ToDoubleFunction<EvolutionResult<IntegerGene, C>> qualityFunction = quality.get();
+        double[] bestQuality = {0d};
+        long start = System.nanoTime();
+        try (HeapSampler heap = new HeapSampler()) {
+            engine.stream()
+                    .limit(Limits.byFixedGeneration(settings.generations))
+                    .limit(Limits.byExecutionTime(Duration.ofSeconds(settings.timeLimit)))
+                    .forEach(r -> {
+                        bestQuality[0] = Math.max(bestQuality[0], qualityFunction.applyAsDouble(r));
+                        long heapUsed = heap.sample();
+                        measurement.record(r.getGeneration(), (System.nanoTime() - start) / 1_000_000, evaluations.sum(), bestQuality[0],
+                                heapUsed, heap.getPeak());
+                    });
+        }
+        return measurement;
+    }
+
+    /**
+     * The settings shared by all runs
+     */
+    private static class Settings {
+
+        /**
+         * The population size
+         */
+        private final int population;
+
+        /**
+         * The number of generations per run
+         */
+        private final long generations;
+
+        /**
+         * The maximum duration of a run in seconds
+         */
+        private final long timeLimit;
+
+        /**
+         * The number of generations executed before measuring
+         */
+        private final long warmup;
+
+        /**
+         * The quality levels to measure the time to reach for
+         */
+        private final double[] qualityLevels;
+
+        private Settings(Map<String, String> options) {
+            this.population = Integer.parseInt(options.getOrDefault("population", "500"));
+            this.generations = Long.parseLong(options.getOrDefault("generations", "200"));
+            this.timeLimit = Long.parseLong(options.getOrDefault("timeLimit", "60"));
+            this.warmup = Long.parseLong(options.getOrDefault("warmup", "20"));
+            this.qualityLevels = Arrays.stream(options.getOrDefault("qualities", "0.5,0.8,0.9,0.95,0.99").split(","))
+                    .mapToDouble(Double::parseDouble)
+                    .toArray();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.benchmark;
+
+import java.util.Random;
+
+/**
+ * The distributions the workloads of generated tasks are drawn from
+ *
+ * @author Stephan Pirnbaum
+ */
+public enum WorkloadDistribution {
+
+    /**
+     * The pattern of the default tasks: half of the tasks with 250 items, a quarter with 1000 and a quarter with 2500
+     */
+    CYCLIC {
+        @Override
+        long next(int task, Random random) {
+            switch (task % 8) {
+                case 0:
+                case 1:
+                case 2:
+                case 3:
+                    return 250;
+                case 4:
+                case 5:
+                    return 1000;
+                default:
+                    return 2500;
+            }
+        }
+    },
+
+    /**
+     * Uniformly distributed between 250 and 2500 items
+     */
+    UNIFORM {
+        @Override
+        long next(int task, Random random) {
+            return 250 + random.nextInt(2251);
+        }
+    },
+
+    /**
+     * Pareto distributed with at least 250 items, i.e. few tasks dominate the overall workload
+     */
+    HEAVY_TAILED {
+        @Override
+        long next(int task, Random random) {
+            return Math.min(100000, (long) (250 / Math.pow(1 - random.nextDouble(), 1 / 1.5)));
+        }
+    };
+
+    /**
+     * Draws the workload of a task
+     *
+     * @param task   The index of the task
+     * @param random The random source
+     *
+     * @return The workload
+     */
+    abstract long next(int task, Random random);
+}
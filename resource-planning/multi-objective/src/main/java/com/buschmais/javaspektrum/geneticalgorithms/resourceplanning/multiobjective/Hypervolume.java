@@ -0,0 +1,248 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.multiobjective;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incrementally maintained hypervolume of an archive of non-dominated points for minimization problems. The
+ * hypervolume is the volume dominated by the archive and bounded by the reference point. Adding a point only
+ * computes the volume the point adds to the archive instead of recomputing the whole hypervolume.
+ *
+ * @author Stephan Pirnbaum
+ */
+public abstract class Hypervolume {
+
+    /**
+     * The reference point bounding the dominated volume
+     */
+    final double[] reference;
+
+    /**
+     * The current hypervolume of the archive
+     */
+    double value;
+
+    private Hypervolume(double[] reference) {
+        this.reference = reference.clone();
+    }
+
+    /**
+     * Creates an empty archive, using the specialized implementation for two objectives if possible
+     *
+     * @param reference The reference point bounding the dominated volume, must be worse than all relevant points
+     *
+     * @return The empty archive
+     */
+    public static Hypervolume of(double... reference) {
+        return reference.length == 2 ? new TwoDimensional(reference) : new General(reference);
+    }
+
+    /**
+     * Adds a point to the archive. Points dominated by the archive or not better than the reference point in all
+     * objectives don't change the hypervolume and are ignored, points of the archive dominated by the new point are
+     * removed.
+     *
+     * @param point The point to add
+     */
+    public void add(double[] point) {
+        for (int i = 0; i < point.length; i++) {
+            if (point[i] >= this.reference[i]) {
+                return;
+            }
+        }
+        insert(point);
+    }
+
+    /**
+     * Returns the current hypervolume of the archive
+     *
+     * @return The hypervolume
+     */
+    public double getValue() {
+        return this.value;
+    }
+
+    /**
+     * Returns the number of points in the archive
+     *
+     * @return The size of the archive
+     */
+    public abstract int size();
+
+    /**
+     * Inserts a point better than the reference point and updates the hypervolume
+     *
+     * @param point The point
+     */
+    abstract void insert(double[] point);
+
+    /**
+     * Archive for two objectives, kept as a staircase sorted by the first objective. Adding a point takes
+     * O(log n) amortized.
+     */
+    private static class TwoDimensional extends Hypervolume {
+
+        /**
+         * The second objective by the first objective, the second objective strictly decreases with the first one
+         */
+        private final TreeMap<Double, Double> staircase = new TreeMap<>();
+
+        private TwoDimensional(double[] reference) {
+            super(reference);
+        }
+
+        @Override
+        public int size() {
+            return this.staircase.size();
+        }
+
+        @Override
+        void insert(double[] point) {
+            double x = point[0];
+            double y = point[1];
+            Map.Entry<Double, Double> predecessor = this.staircase.floorEntry(x);
+            if (predecessor != null && predecessor.getValue() <= y) {
+                return;
+            }
+            /*
+             * Walk over the successors dominated by the new point and add the area between them and the new point
+             */
+            double top = predecessor == null ? this.reference[1] : predecessor.getValue();
+            double left = x;
+            Iterator<Map.Entry<Double, Double>> successors = this.staircase.tailMap(x, true).entrySet().iterator();
+            double right = this.reference[0];
+            while (successors.hasNext()) {
+                Map.Entry<Double, Double> successor = successors.next();
+                if (successor.getValue() < y) {
+                    right = successor.getKey();
+                    break;
+                }
+                this.value += (successor.getKey() - left) * (top - y);
+                left = successor.getKey();
+                top = successor.getValue();
+                successors.remove();
+            }
+            this.value += (right - left) * (top - y);
+            this.staircase.put(x, y);
+        }
+    }
+
+    /**
+     * Archive for any number of objectives. The volume added by a point is its box minus the hypervolume of the archive
+     * limited to that box, which is computed with the WFG algorithm.
+     */
+    private static class General extends Hypervolume {
+
+        /**
+         * The non-dominated points
+         */
+        private final List<double[]> archive = new ArrayList<>();
+
+        private General(double[] reference) {
+            super(reference);
+        }
+
+        @Override
+        public int size() {
+            return this.archive.size();
+        }
+
+        @Override
+        void insert(double[] point) {
+            for (double[] p : this.archive) {
+                if (weaklyDominates(p, point)) {
+                    return;
+                }
+            }
+            this.value += box(point) - volume(limit(this.archive, point));
+            this.archive.removeIf(p -> weaklyDominates(point, p));
+            this.archive.add(point.clone());
+        }
+
+        /**
+         * Computes the hypervolume of a set of points using the WFG algorithm
+         *
+         * @param points The points, sorted descending by the first objective
+         *
+         * @return The hypervolume
+         */
+        private double volume(List<double[]> points) {
+            double volume = 0d;
+            for (int i = 0; i < points.size(); i++) {
+                volume += box(points.get(i)) - volume(limit(points.subList(i + 1, points.size()), points.get(i)));
+            }
+            return volume;
+        }
+
+        /**
+         * Limits the points to the region dominated by the given point and removes the dominated ones
+         *
+         * @param points The points
+         * @param bound  The bounding point
+         *
+         * @return The non-dominated limited points, sorted descending by the first objective
+         */
+        private List<double[]> limit(List<double[]> points, double[] bound) {
+            List<double[]> limited = new ArrayList<>(points.size());
+            for (double[] p : points) {
+                double[] l = new double[p.length];
+                for (int i = 0; i < p.length; i++) {
+                    l[i] = Math.max(p[i], bound[i]);
+                }
+                limited.add(l);
+            }
+            limited.sort(Comparator.comparingDouble((double[] p) -> p[0]).reversed());
+            List<double[]> front = new ArrayList<>(limited.size());
+            for (int i = 0; i < limited.size(); i++) {
+                boolean dominated = false;
+                for (int j = i + 1; j < limited.size() && !dominated; j++) {
+                    dominated = weaklyDominates(limited.get(j), limited.get(i));
+                }
+                for (int j = 0; j < i && !dominated; j++) {
+                    dominated = weaklyDominates(limited.get(j), limited.get(i)) && !Arrays.equals(limited.get(j), limited.get(i));
+                }
+                if (!dominated) {
+                    front.add(limited.get(i));
+                }
+            }
+            return front;
+        }
+
+        /**
+         * Computes the volume of the box between a point and the reference point
+         *
+         * @param point The point
+         *
+         * @return The volume
+         */
+        private double box(double[] point) {
+            double volume = 1d;
+            for (int i = 0; i < point.length; i++) {
+                volume *= this.reference[i] - point[i];
+            }
+            return volume;
+        }
+
+        /**
+         * Checks whether a point is better than or equal to another one in all objectives
+         *
+         * @param a The first point
+         * @param b The second point
+         *
+         * @return <code>true</code> if a weakly dominates b
+         */
+        private static boolean weaklyDominates(double[] a, double[] b) {
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] > b[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.multiobjective;
+
+import io.jenetics.Phenotype;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.ext.moea.Vec;
+
+import java.util.function.Consumer;
+
+/**
+ * Hypervolume indicator of an evolution of a minimization problem. Every generation the population is added to an
+ * archive of all non-dominated solutions found so far, the hypervolume of the archive is updated incrementally.
+ * The indicator is meant to be used as peek operation of the evolution stream.
+ * <p>
+ * If the fitness of some individuals is only approximated, the indicator must be created by
+ * {@link #ofExactEvaluations(double...)}: then only the exactly evaluated solutions passed to {@link #add(double...)}
+ * are archived and the populations are ignored.
+ *
+ * @author Stephan Pirnbaum
+ */
+public class HypervolumeIndicator implements Consumer<EvolutionResult<?, Vec<double[]>>> {
+
+    /**
+     * The archive of the non-dominated solutions
+     */
+    private final Hypervolume hypervolume;
+
+    /**
+     * The last generation added to the archive
+     */
+    private long generation = -1;
+
+    /**
+     * Whether the populations of the results are added to the archive
+     */
+    private final boolean archivePopulations;
+
+    /**
+     * Creates an indicator archiving the populations of the results
+     *
+     * @param reference The reference point bounding the dominated volume, must be worse than all relevant solutions
+     */
+    public HypervolumeIndicator(double... reference) {
+        this(true, reference);
+    }
+
+    /**
+     * Creates an indicator
+     *
+     * @param archivePopulations Whether the populations of the results are added to the archive
+     * @param reference          The reference point bounding the dominated volume, must be worse than all relevant
+     *                           solutions
+     */
+    private HypervolumeIndicator(boolean archivePopulations, double... reference) {
+        this.archivePopulations = archivePopulations;
+        this.hypervolume = Hypervolume.of(reference);
+    }
+
+    /**
+     * Creates an indicator archiving only the solutions passed to {@link #add(double...)}
+     *
+     * @param reference The reference point bounding the dominated volume, must be worse than all relevant solutions
+     *
+     * @return The indicator
+     */
+    public static HypervolumeIndicator ofExactEvaluations(double... reference) {
+        return new HypervolumeIndicator(false, reference);
+    }
+
+    /**
+     * Adds the population of the given result to the archive, results of generations already added are ignored. An
+     * indicator created by {@link #ofExactEvaluations(double...)} only records the generation.
+     *
+     * @param result The evolution result
+     */
+    @Override
+    public synchronized void accept(EvolutionResult<?, Vec<double[]>> result) {
+        if (result.getGeneration() <= this.generation) {
+            return;
+        }
+        this.generation = result.getGeneration();
+        if (this.archivePopulations) {
+            for (Phenotype<?, Vec<double[]>> phenotype : result.getPopulation()) {
+                this.hypervolume.add(phenotype.getFitness().data());
+            }
+        }
+    }
+
+    /**
+     * Adds an exactly evaluated solution to the archive
+     *
+     * @param objectives The objective values of the solution
+     */
+    public synchronized void add(double... objectives) {
+        this.hypervolume.add(objectives);
+    }
+
+    /**
+     * Returns the hypervolume of all non-dominated solutions found so far
+     *
+     * @return The hypervolume
+     */
+    public synchronized double getHypervolume() {
+        return this.hypervolume.getValue();
+    }
+
+    /**
+     * Returns the number of non-dominated solutions found so far
+     *
+     * @return The size of the archive
+     */
+    public synchronized int getArchiveSize() {
+        return this.hypervolume.size();
+    }
+
+    /**
+     * Returns the last generation added to the archive
+     *
+     * @return The generation
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+}
@@ -0,0 +1,47 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.multiobjective;
+
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.ext.moea.Vec;
+
+import java.util.function.Predicate;
+
+/**
+ * Limits for evolution streams of multi-objective problems based on the {@link HypervolumeIndicator}, in the style of
+ * {@link io.jenetics.engine.Limits}.
+ *
+ * @author Stephan Pirnbaum
+ */
+public final class HypervolumeLimits {
+
+    private HypervolumeLimits() {
+    }
+
+    /**
+     * Returns a limit which stops the evolution as soon as the relative hypervolume improvement over the last
+     * <code>window</code> generations falls below the threshold.
+     *
+     * @param indicator The indicator, updated by the limit if not done by a preceding peek operation
+     * @param window    The number of generations to compare
+     * @param threshold The minimal relative improvement, e.g. 0.001 for 0.1%
+     *
+     * @return The limit
+     */
+    public static Predicate<EvolutionResult<?, Vec<double[]>>> byHypervolumeConvergence(HypervolumeIndicator indicator, int window, double threshold) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        double[] history = new double[window + 1];
+        long[] generations = {0};
+        return result -> {
+            indicator.accept(result);
+            double current = indicator.getHypervolume();
+            history[(int) (generations[0] % history.length)] = current;
+            generations[0]++;
+            if (generations[0] < history.length) {
+                return true;
+            }
+            double previous = history[(int) (generations[0] % history.length)];
+            return current <= 0d || (current - previous) / current >= threshold;
+        };
+    }
+}
@@ -1,5 +1,13 @@
 package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.multiobjective;
 
+import com.buschmais.javaspektrum.geneticalgorithms.common.CommandLine;
+import com.buschmais.javaspektrum.geneticalgorithms.common.adaptive.AdaptiveAlterer;
+import com.buschmais.javaspektrum.geneticalgorithms.common.distributed.DistributedEvaluator;
+import com.buschmais.javaspektrum.geneticalgorithms.common.distributed.DistributedFitness;
+import com.buschmais.javaspektrum.geneticalgorithms.common.surrogate.LinearRegressionModel;
+import com.buschmais.javaspektrum.geneticalgorithms.common.surrogate.NearestNeighborModel;
+import com.buschmais.javaspektrum.geneticalgorithms.common.surrogate.SurrogateFitness;
+import com.buschmais.javaspektrum.geneticalgorithms.common.surrogate.SurrogateModel;
 import io.jenetics.*;
 import io.jenetics.engine.Engine;
 import io.jenetics.engine.Limits;
@@ -8,8 +16,12 @@ import io.jenetics.ext.moea.NSGA2Selector;
 import io.jenetics.ext.moea.Vec;
 import io.jenetics.util.ISeq;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.Comparator;
-import java.util.concurrent.ForkJoinPool;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class ResourcePlanningMOOGA {
 
@@ -31,12 +43,168 @@ public class ResourcePlanningMOOGA {
         initializeTasks();
     }
 
-    public static void main(String[] args) {
+    /**
+     * Creates a new instance with the given resources and tasks
+     *
+     * @param resources The resources
+     * @param tasks     The tasks
+     */
+    private ResourcePlanningMOOGA(Resource[] resources, Task[] tasks) {
+        this.resources = resources;
+        this.tasks = tasks;
+    }
+
+    /**
+     * Creates a new instance for an arbitrary problem size, the costs of the resources are derived from the items per
+     * minute like for the default resources
+     *
+     * @param itemsPerMinute The items per minute of every resource
+     * @param workloads      The workload of every task
+     *
+     * @return The new instance
+     */
+    public static ResourcePlanningMOOGA of(long[] itemsPerMinute, long[] workloads) {
+        Resource[] resources = new Resource[itemsPerMinute.length];
+        for (int i = 0; i < resources.length; i++) {
+            resources[i] = new Resource(Math.pow(itemsPerMinute[i], 1.1), itemsPerMinute[i]);
+        }
+        Task[] tasks = new Task[workloads.length];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(workloads[i]);
+        }
+        return new ResourcePlanningMOOGA(resources, tasks);
+    }
+
+    /**
+     * Computes the pareto frontier. The fitness is evaluated locally if no arguments are given, otherwise
+     * <ul>
+     * <li><code>worker &lt;port&gt;</code> serves fitness evaluations on the given port</li>
+     * <li><code>master &lt;host:port&gt;[,&lt;host:port&gt;...] [&lt;timeout&gt;]</code> evaluates the fitness on the given
+     * workers, a worker not answering within the timeout in seconds (default 60) is considered to be failed</li>
+     * <li><code>local &lt;count&gt; [&lt;timeout&gt;]</code> starts the given number of workers on this host and evaluates
+     * the fitness on them</li>
+     * <li><code>surrogate linear|knn</code> evaluates only the most promising offspring exactly, pre-screened by linear
+     * regression on the resource loads or k nearest neighbors over the alleles</li>
+     * <li><code>adaptive</code> adapts the crossover and mutation probabilities during the run</li>
+     * </ul>
+     * Any other arguments print the usage and exit.
+     *
+     * @param args The arguments
+     *
+     * @throws IOException If the communication with the workers fails
+     */
+    public static void main(String[] args) throws IOException {
         ResourcePlanningMOOGA ga = new ResourcePlanningMOOGA();
-        ga.computeSchedule();
+        new CommandLine("ResourcePlanningMOOGA", a -> ga.computeSchedule(ga::fitness, Alterer.<IntegerGene, Vec<double[]>>of(new SinglePointCrossover<>(1), new Mutator<>(0.01))))
+                .distributed(ResourcePlanningMOOGA.class, ga::computeObjectives, ga::computeScheduleDistributed)
+                .mode("surrogate linear", a -> ga.computeScheduleWithSurrogate(new LinearRegressionModel(), ga::computeLoads))
+                .mode("surrogate knn", a -> ga.computeScheduleWithSurrogate(new NearestNeighborModel(5, 1000, NearestNeighborModel.Distance.HAMMING), ga::computeAlleles))
+                .mode("adaptive", a -> ga.computeScheduleAdaptive())
+                .run(args);
+    }
+
+    /**
+     * Computes the pareto frontier while evaluating the fitness on the given workers
+     *
+     * @param workers       The addresses of the workers
+     * @param timeoutMillis The time in milliseconds after which a worker not answering is considered to be failed
+     *
+     * @throws IOException If none of the workers is reachable
+     */
+    private void computeScheduleDistributed(List<InetSocketAddress> workers, long timeoutMillis) throws IOException {
+        try (DistributedEvaluator evaluator = new DistributedEvaluator(workers, DistributedEvaluator.DEFAULT_BATCH_SIZE,
+                DistributedEvaluator.DEFAULT_PIPELINE_DEPTH, timeoutMillis)) {
+            DistributedFitness<Vec<double[]>> fitness = new DistributedFitness<>(evaluator, Vec::of);
+            computeSchedule(fitness, fitness.alterer(Alterer.<IntegerGene, Vec<double[]>>of(new SinglePointCrossover<>(1), new Mutator<>(0.01))));
+            System.out.println("Re-dispatched batches: " + evaluator.getRedispatchedBatches());
+        }
+    }
+
+    /**
+     * Computes the pareto frontier while adapting the crossover and mutation probabilities to the success of the
+     * offspring and the diversity of the population. An offspring is successful if it dominates the individual it
+     * replaced.
+     */
+    private void computeScheduleAdaptive() {
+        AdaptiveAlterer<IntegerGene, Vec<double[]>> alterer = new AdaptiveAlterer<>(SinglePointCrossover::new, Mutator::new, Optimize.MINIMUM, 1, 0.01);
+        computeSchedule(alterer.fitness(this::fitness), alterer);
+        System.out.println(alterer);
+    }
+
+    /**
+     * Computes a pareto frontier while pre-screening the offspring with a surrogate model
+     *
+     * @param model    The surrogate model
+     * @param features Extracts the features the model works on
+     */
+    private void computeScheduleWithSurrogate(SurrogateModel model, Function<Genotype<IntegerGene>, double[]> features) {
+        double[] reference = computeReferencePoint();
+        /*
+         * Track the hypervolume of the exactly evaluated solutions only, approximated fitness values would inflate it
+         */
+        HypervolumeIndicator hypervolume = HypervolumeIndicator.ofExactEvaluations(reference);
+        SurrogateFitness<IntegerGene, Vec<double[]>> fitness = new SurrogateFitness<>(
+                g -> new double[]{computeTime(g), computeCosts(g)},
+                features, model, Vec::of, o -> o[0] / reference[0] + o[1] / reference[1])
+                .onExactEvaluation(hypervolume::add);
+        computeSchedule(fitness, fitness.alterer(Alterer.<IntegerGene, Vec<double[]>>of(new SinglePointCrossover<>(1), new Mutator<>(0.01))), hypervolume);
+        System.out.println(fitness);
     }
 
-    private void computeSchedule() {
+    /**
+     * Computes the pareto frontier with regard to time and costs and pretty prints it to the command line
+     *
+     * @param fitness The fitness function
+     * @param alterer The alterer
+     */
+    private void computeSchedule(Function<Genotype<IntegerGene>, Vec<double[]>> fitness, Alterer<IntegerGene, Vec<double[]>> alterer) {
+        computeSchedule(fitness, alterer, new HypervolumeIndicator(computeReferencePoint()));
+    }
+
+    /**
+     * Computes the pareto frontier with regard to time and costs and pretty prints it to the command line. The fitness
+     * of the frontier is re-evaluated exactly before printing, as the given fitness function may approximate it.
+     *
+     * @param fitness     The fitness function
+     * @param alterer     The alterer
+     * @param hypervolume The indicator deciding about the convergence
+     */
+    private void computeSchedule(Function<Genotype<IntegerGene>, Vec<double[]>> fitness, Alterer<IntegerGene, Vec<double[]>> alterer,
+                                 HypervolumeIndicator hypervolume) {
+        Engine<IntegerGene, Vec<double[]>> engine = engineBuilder(fitness)
+                .alterers(alterer)
+                .build();
+        /*
+         * Execute the genetic algorithm until the hypervolume improved by less than 0.01% within the last 100
+         * generations, but for at most 2000 generations
+         */
+        ISeq<Phenotype<IntegerGene, Vec<double[]>>> paretoFrontier = engine.stream()
+                .limit(Limits.byFixedGeneration(2000))
+                .limit(HypervolumeLimits.byHypervolumeConvergence(hypervolume, 100, 0.0001))
+                .peek(i -> System.out.print("\rGeneration: " + i.getGeneration() + " Hypervolume: " + hypervolume.getHypervolume()))
+                .collect(MOEA.toParetoSet());
+        /*
+         * Re-evaluate the frontier exactly and drop the solutions which turn out to be dominated
+         */
+        List<Vec<double[]>> exact = paretoFrontier.stream()
+                .map(p -> fitness(p.getGenotype()))
+                .collect(Collectors.toList());
+        System.out.println("\n\n\n============\nPareto Frontier\n============\n");
+        exact.stream()
+                .filter(v -> exact.stream().noneMatch(o -> o.dominance(v) > 0))
+                .distinct()
+                .sorted(Comparator.comparingDouble(v -> v.data()[0]))
+                .forEach(v -> System.out.println("Time: " + v.data()[0] + " Costs: " + v.data()[1]));
+    }
+
+    /**
+     * Creates a builder for the GA engine, preconfigured with the parameters used for computing the pareto frontier
+     *
+     * @param fitness The fitness function
+     *
+     * @return The engine builder
+     */
+    public Engine.Builder<IntegerGene, Vec<double[]>> engineBuilder(Function<Genotype<IntegerGene>, Vec<double[]>> fitness) {
         /*
          * create a genotype that maps resources to tasks
          */
@@ -45,31 +213,76 @@ public class ResourcePlanningMOOGA {
         );
 
         /*
-         *create the GA engine with the specified parameters
+         *create the GA engine builder with the specified parameters
          */
-        Engine<IntegerGene, Vec<double[]>> engine = Engine
-                .builder(
-                        i -> Vec.of(computeTime(i), computeCosts(i)),
-                        genotype
-                )
-                .executor(new ForkJoinPool())
+        return Engine
+                .builder(fitness, genotype)
                 .populationSize(500)
                 .survivorsSelector(NSGA2Selector.vec())
                 .alterers(new SinglePointCrossover<>(1), new Mutator<>(0.01))
-                .minimizing()
-                .build();
-        /*
-         * Execute the genetic algorithm for 2000 generations
-         */
-        ISeq<Phenotype<IntegerGene, Vec<double[]>>> paretoFrontier = engine.stream()
-                .limit(Limits.byFixedGeneration(2000))
-                .peek(i -> System.out.print("\rGeneration: " + i.getGeneration()))
-                .collect(MOEA.toParetoSet());
-        System.out.println("\n\n\n============\nPareto Frontier\n============\n");
-        paretoFrontier
-                .stream()
-                .sorted(Comparator.comparingDouble(p -> p.getFitness().data()[0]))
-                .forEach(p -> System.out.println("Time: " + p.getFitness().data()[0] + " Costs: " + p.getFitness().data()[1]));
+                .minimizing();
+    }
+
+    /**
+     * Computes the fitness of an individual, i.e. the needed time and the produced costs
+     *
+     * @param genotype The genotype to compute the fitness for
+     *
+     * @return The fitness
+     */
+    public Vec<double[]> fitness(Genotype<IntegerGene> genotype) {
+        return Vec.of(computeTime(genotype), computeCosts(genotype));
+    }
+
+    /**
+     * Computes the workload assigned to every resource, used as features of the surrogate model
+     *
+     * @param genotype The genotype to compute the loads for
+     *
+     * @return The workload by resource index
+     */
+    private double[] computeLoads(Genotype<IntegerGene> genotype) {
+        Chromosome<IntegerGene> chromosome = genotype.getChromosome();
+        double[] loads = new double[this.resources.length];
+        for (int i = 0; i < chromosome.length(); i++) {
+            loads[chromosome.getGene(i).getAllele()] += this.tasks[i].getWorkload();
+        }
+        return loads;
+    }
+
+    /**
+     * Returns the resource index of every task, used as features of the surrogate model
+     *
+     * @param genotype The genotype to return the alleles for
+     *
+     * @return The alleles
+     */
+    private double[] computeAlleles(Genotype<IntegerGene> genotype) {
+        Chromosome<IntegerGene> chromosome = genotype.getChromosome();
+        double[] alleles = new double[chromosome.length()];
+        for (int i = 0; i < chromosome.length(); i++) {
+            alleles[i] = chromosome.getGene(i).getAllele();
+        }
+        return alleles;
+    }
+
+    /**
+     * Computes time and costs of the schedule given by the alleles, used by the workers of the distributed evaluation
+     *
+     * @param alleles The resource index for every task
+     *
+     * @return The needed time and the produced costs
+     */
+    private double[] computeObjectives(int[] alleles) {
+        double accumulatedTime = 0d;
+        double accumulatedCosts = 0d;
+        for (int i = 0; i < alleles.length; i++) {
+            Resource resource = this.resources[alleles[i]];
+            double time = this.tasks[i].getWorkload() / resource.getItemsPerMinute();
+            accumulatedTime += time;
+            accumulatedCosts += time * resource.getCostsPerMinute();
+        }
+        return new double[]{accumulatedTime, accumulatedCosts};
     }
 
     /**
@@ -108,6 +321,48 @@ public class ResourcePlanningMOOGA {
         return accumulatedCosts;
     }
 
+    /**
+     * Computes the ideal point, i.e. the minimal time and the minimal costs, each reachable by some schedule but in
+     * general not by the same one
+     *
+     * @return The ideal point
+     */
+    public double[] computeIdealPoint() {
+        double time = 0d;
+        double costs = 0d;
+        for (Task task : this.tasks) {
+            double minTime = Double.POSITIVE_INFINITY;
+            double minCosts = Double.POSITIVE_INFINITY;
+            for (Resource resource : this.resources) {
+                double taskTime = task.getWorkload() / resource.getItemsPerMinute();
+                minTime = Math.min(minTime, taskTime);
+                minCosts = Math.min(minCosts, taskTime * resource.getCostsPerMinute());
+            }
+            time += minTime;
+            costs += minCosts;
+        }
+        return new double[]{time, costs};
+    }
+
+    /**
+     * Computes the reference point for the hypervolume, i.e. time and costs which are not exceeded by any schedule
+     *
+     * @return The reference point
+     */
+    public double[] computeReferencePoint() {
+        double maxTimePerItem = 0d;
+        double maxCostsPerItem = 0d;
+        for (Resource resource : this.resources) {
+            maxTimePerItem = Math.max(maxTimePerItem, 1d / resource.getItemsPerMinute());
+            maxCostsPerItem = Math.max(maxCostsPerItem, resource.getCostsPerMinute() / resource.getItemsPerMinute());
+        }
+        double workload = 0d;
+        for (Task task : this.tasks) {
+            workload += task.getWorkload();
+        }
+        return new double[]{workload * maxTimePerItem, workload * maxCostsPerItem};
+    }
+
     /**
      * Initializes the resources
      */
@@ -0,0 +1,79 @@
+package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.singleobjective;
+
+import io.jenetics.engine.EvolutionResult;
+
+import java.util.function.Predicate;
+
+/**
+ * Limits an evolution to the generations in which the best exactly evaluated fitness still improves, like
+ * {@link io.jenetics.engine.Limits#bySteadyFitness(int)} does for the fitness of the population. Used if the fitness of
+ * some individuals is only approximated, the exact fitness values must be passed to {@link #add(double)}.
+ *
+ * @author Stephan Pirnbaum
+ */
+class ExactFitnessLimit implements Predicate<EvolutionResult<?, Double>> {
+
+    /**
+     * The number of generations without improvement after which the evolution stops
+     */
+    private final int generations;
+
+    /**
+     * The best exactly evaluated fitness so far
+     */
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Whether the best fitness improved since the last generation
+     */
+    private boolean improved;
+
+    /**
+     * The number of generations since the last improvement
+     */
+    private int steadyGenerations;
+
+    /**
+     * Creates the limit
+     *
+     * @param generations The number of generations without improvement after which the evolution stops
+     */
+    ExactFitnessLimit(int generations) {
+        this.generations = generations;
+    }
+
+    /**
+     * Adds an exactly evaluated fitness
+     *
+     * @param fitness The fitness
+     */
+    synchronized void add(double fitness) {
+        if (fitness > this.bestFitness) {
+            this.bestFitness = fitness;
+            this.improved = true;
+        }
+    }
+
+    /**
+     * Checks whether the evolution continues after the given generation
+     *
+     * @param result The result of the generation
+     *
+     * @return Whether the best fitness improved within the last generations
+     */
+    @Override
+    public synchronized boolean test(EvolutionResult<?, Double> result) {
+        this.steadyGenerations = this.improved ? 0 : this.steadyGenerations + 1;
+        this.improved = false;
+        return this.steadyGenerations < this.generations;
+    }
+
+    /**
+     * Returns the best exactly evaluated fitness so far
+     *
+     * @return The fitness
+     */
+    synchronized double getBestFitness() {
+        return this.bestFitness;
+    }
+}
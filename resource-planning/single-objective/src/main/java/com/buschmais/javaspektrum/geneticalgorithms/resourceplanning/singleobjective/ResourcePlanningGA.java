@@ -1,11 +1,26 @@
 package com.buschmais.javaspektrum.geneticalgorithms.resourceplanning.singleobjective;
 
+import com.buschmais.javaspektrum.geneticalgorithms.common.CommandLine;
+import com.buschmais.javaspektrum.geneticalgorithms.common.adaptive.AdaptiveAlterer;
+import com.buschmais.javaspektrum.geneticalgorithms.common.distributed.DistributedEvaluator;
+import com.buschmais.javaspektrum.geneticalgorithms.common.distributed.DistributedFitness;
+import com.buschmais.javaspektrum.geneticalgorithms.common.steadystate.SteadyStateEngine;
+import com.buschmais.javaspektrum.geneticalgorithms.common.surrogate.LinearRegressionModel;
+import com.buschmais.javaspektrum.geneticalgorithms.common.surrogate.NearestNeighborModel;
+import com.buschmais.javaspektrum.geneticalgorithms.common.surrogate.SurrogateFitness;
+import com.buschmais.javaspektrum.geneticalgorithms.common.surrogate.SurrogateModel;
 import io.jenetics.*;
 import io.jenetics.engine.Engine;
 import io.jenetics.engine.EvolutionResult;
 import io.jenetics.engine.Limits;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
 /**
  * Implementation of the resource scheduling example (JavaSPEKTRUM 01/2018) using Jenetics.
@@ -32,43 +47,180 @@ public class ResourcePlanningGA {
         initializeTasks();
     }
 
-    public static void main(String[] args) {
+    /**
+     * Creates a new instance with the given resources and tasks
+     *
+     * @param resources The resources
+     * @param tasks     The tasks
+     */
+    private ResourcePlanningGA(Resource[] resources, Task[] tasks) {
+        this.resources = resources;
+        this.tasks = tasks;
+    }
+
+    /**
+     * Creates a new instance for an arbitrary problem size, the costs of the resources are derived from the items per
+     * minute like for the default resources
+     *
+     * @param itemsPerMinute The items per minute of every resource
+     * @param workloads      The workload of every task
+     *
+     * @return The new instance
+     */
+    public static ResourcePlanningGA of(long[] itemsPerMinute, long[] workloads) {
+        Resource[] resources = new Resource[itemsPerMinute.length];
+        for (int i = 0; i < resources.length; i++) {
+            resources[i] = new Resource(Math.pow(itemsPerMinute[i], 1.1), itemsPerMinute[i]);
+        }
+        Task[] tasks = new Task[workloads.length];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(workloads[i]);
+        }
+        return new ResourcePlanningGA(resources, tasks);
+    }
+
+    /**
+     * Computes the schedule. The fitness is evaluated locally if no arguments are given, otherwise
+     * <ul>
+     * <li><code>worker &lt;port&gt;</code> serves fitness evaluations on the given port</li>
+     * <li><code>master &lt;host:port&gt;[,&lt;host:port&gt;...] [&lt;timeout&gt;]</code> evaluates the fitness on the given
+     * workers, a worker not answering within the timeout in seconds (default 60) is considered to be failed</li>
+     * <li><code>local &lt;count&gt; [&lt;timeout&gt;]</code> starts the given number of workers on this host and evaluates
+     * the fitness on them</li>
+     * <li><code>surrogate linear|knn</code> evaluates only the most promising offspring exactly, pre-screened by linear
+     * regression on the resource loads or k nearest neighbors over the alleles</li>
+     * <li><code>adaptive</code> adapts the crossover and mutation probabilities during the run</li>
+     * <li><code>steady-state</code> replaces only two individuals per step instead of the whole population</li>
+     * </ul>
+     * Any other arguments print the usage and exit.
+     *
+     * @param args The arguments
+     *
+     * @throws IOException If the communication with the workers fails
+     */
+    public static void main(String[] args) throws IOException {
         ResourcePlanningGA ga = new ResourcePlanningGA();
-        ga.computeSchedule();
+        new CommandLine("ResourcePlanningGA", a -> ga.computeSchedule(ga::fitness, Alterer.<IntegerGene, Double>of(new SinglePointCrossover<>(1), new Mutator<>(0.01))))
+                .distributed(ResourcePlanningGA.class, ga::computeObjectives, ga::computeScheduleDistributed)
+                .mode("surrogate linear", a -> ga.computeScheduleWithSurrogate(new LinearRegressionModel(), ga::computeLoads))
+                .mode("surrogate knn", a -> ga.computeScheduleWithSurrogate(new NearestNeighborModel(5, 1000, NearestNeighborModel.Distance.HAMMING), ga::computeAlleles))
+                .mode("adaptive", a -> ga.computeScheduleAdaptive())
+                .mode("steady-state", a -> ga.computeScheduleSteadyState())
+                .run(args);
     }
 
     /**
-     * Computes a schedule with regard to the fitness and pretty prints it to the command line
+     * Computes a schedule while evaluating the fitness on the given workers
+     *
+     * @param workers       The addresses of the workers
+     * @param timeoutMillis The time in milliseconds after which a worker not answering is considered to be failed
+     *
+     * @throws IOException If none of the workers is reachable
+     */
+    private void computeScheduleDistributed(List<InetSocketAddress> workers, long timeoutMillis) throws IOException {
+        try (DistributedEvaluator evaluator = new DistributedEvaluator(workers, DistributedEvaluator.DEFAULT_BATCH_SIZE,
+                DistributedEvaluator.DEFAULT_PIPELINE_DEPTH, timeoutMillis)) {
+            DistributedFitness<Double> fitness = new DistributedFitness<>(evaluator, o -> - o[0] - o[1]);
+            computeSchedule(fitness, fitness.alterer(Alterer.<IntegerGene, Double>of(new SinglePointCrossover<>(1), new Mutator<>(0.01))));
+            System.out.println("Re-dispatched batches: " + evaluator.getRedispatchedBatches());
+        }
+    }
+
+    /**
+     * Computes a schedule while adapting the crossover and mutation probabilities to the success of the offspring and the
+     * diversity of the population
+     */
+    private void computeScheduleAdaptive() {
+        AdaptiveAlterer<IntegerGene, Double> alterer = new AdaptiveAlterer<>(SinglePointCrossover::new, Mutator::new, Optimize.MAXIMUM, 1, 0.01);
+        computeSchedule(alterer.fitness(this::fitness), alterer);
+        System.out.println(alterer);
+    }
+
+    /**
+     * Computes a schedule with a steady-state evolution, each step replaces the worst individuals by the offspring of two
+     * parents
      */
-    private void computeSchedule() {
+    private void computeScheduleSteadyState() {
+        SteadyStateEngine<IntegerGene, Double> engine = SteadyStateEngine.of(engineBuilder(this::fitness).build());
         /*
-         * create a genotype that maps resources to tasks
+         * Execute the genetic algorithm until there is no better solution within as many evaluations as 500 generations
+         * of the generational engine take
          */
-        Genotype<IntegerGene> genotype = Genotype.of(
-                IntegerChromosome.of(0, resources.length - 1, tasks.length)
-        );
+        long steps = 500L * engine.getPopulationSize() / 2;
+        Phenotype<IntegerGene, Double> best = engine.evolve(e -> e.getStepsSinceImprovement() < steps,
+                p -> System.out.println("Step: " + engine.getSteps() + " Best Fitness: " + p.getFitness()));
+        printSchedule("Steps: " + engine.getSteps() + " Evaluations: " + engine.getEvaluations(), best);
+    }
+
+    /**
+     * Computes a schedule while pre-screening the offspring with a surrogate model
+     *
+     * @param model    The surrogate model
+     * @param features Extracts the features the model works on
+     */
+    private void computeScheduleWithSurrogate(SurrogateModel model, Function<Genotype<IntegerGene>, double[]> features) {
         /*
-         *create the GA engine with the specified parameters
+         * Track the best fitness of the exactly evaluated solutions only, approximated fitness values would mislead the
+         * stop criterion
          */
-        Engine<IntegerGene, Double> engine = Engine
-                .builder(this::fitness, genotype)
-                .populationSize(500)
-                .alterers(new SinglePointCrossover<>(1), new Mutator<>(0.01))
-                .selector(new RouletteWheelSelector<>())
-                .build();
+        ExactFitnessLimit limit = new ExactFitnessLimit(500);
+        SurrogateFitness<IntegerGene, Double> fitness = new SurrogateFitness<>(
+                g -> new double[]{computeTime(g.getChromosome()), computeCosts(g.getChromosome())},
+                features, model, o -> - o[0] - o[1], o -> o[0] + o[1])
+                .onExactEvaluation(o -> limit.add(- o[0] - o[1]));
+        computeSchedule(fitness, fitness.alterer(Alterer.<IntegerGene, Double>of(new SinglePointCrossover<>(1), new Mutator<>(0.01))),
+                limit, r -> limit.getBestFitness());
+        System.out.println(fitness);
+    }
+
+    /**
+     * Computes a schedule with regard to the fitness and pretty prints it to the command line
+     *
+     * @param fitness The fitness function
+     * @param alterer The alterer
+     */
+    private void computeSchedule(Function<Genotype<IntegerGene>, Double> fitness, Alterer<IntegerGene, Double> alterer) {
         /*
          * Execute the genetic algorithm until there is no better solution in the last 500 generations
          */
+        computeSchedule(fitness, alterer, Limits.bySteadyFitness(500), EvolutionResult::getBestFitness);
+    }
+
+    /**
+     * Computes a schedule with regard to the fitness and pretty prints it to the command line
+     *
+     * @param fitness     The fitness function
+     * @param alterer     The alterer
+     * @param limit       Decides after every generation whether the evolution continues
+     * @param bestFitness Returns the best fitness reported for a generation
+     */
+    private void computeSchedule(Function<Genotype<IntegerGene>, Double> fitness, Alterer<IntegerGene, Double> alterer,
+                                 Predicate<? super EvolutionResult<IntegerGene, Double>> limit,
+                                 ToDoubleFunction<EvolutionResult<IntegerGene, Double>> bestFitness) {
+        Engine<IntegerGene, Double> engine = engineBuilder(fitness)
+                .alterers(alterer)
+                .build();
         EvolutionResult<IntegerGene, Double> result = engine
                 .stream()
-                .limit(Limits.bySteadyFitness(500))
-                .peek(g -> System.out.println("Generation: " + g.getGeneration() + " Best Fitness: " + g.getBestFitness()))
+                .limit(limit)
+                .peek(g -> System.out.println("Generation: " + g.getGeneration() + " Best Fitness: " + bestFitness.applyAsDouble(g)))
                 .collect(EvolutionResult.toBestEvolutionResult());
+        printSchedule("Generation: " + result.getGeneration(), result.getBestPhenotype());
+    }
+
+    /**
+     * Pretty prints a schedule to the command line. The fitness of the schedule is re-evaluated exactly, as the fitness
+     * function of the engine may approximate it.
+     *
+     * @param progress Describes the progress of the algorithm when finishing
+     * @param best     The best individual
+     */
+    private void printSchedule(String progress, Phenotype<IntegerGene, Double> best) {
         /*
          * interpret the data for pretty printing
          */
         Map<Resource, Set<Task>> schedule = new HashMap<>();
-        Chromosome<IntegerGene> chromosome = result.getBestPhenotype().getGenotype().getChromosome();
+        Chromosome<IntegerGene> chromosome = best.getGenotype().getChromosome();
         for (int i = 0; i < chromosome.length(); i++) {
             Resource resource = this.resources[chromosome.getGene(i).getAllele()];
             Task task = this.tasks[i];
@@ -82,10 +234,10 @@ public class ResourcePlanningGA {
          */
         System.out.println("Finished");
         System.out.println("-----------------");
-        System.out.println("Generation: " + result.getGeneration());
-        System.out.println("Fitness: " + result.getBestFitness());
-        System.out.println("Cost: " + computeCosts(result.getBestPhenotype().getGenotype().getChromosome()));
-        System.out.println("Time: " + computeTime(result.getBestPhenotype().getGenotype().getChromosome()) + " Minutes");
+        System.out.println(progress);
+        System.out.println("Fitness: " + fitness(best.getGenotype()));
+        System.out.println("Cost: " + computeCosts(chromosome));
+        System.out.println("Time: " + computeTime(chromosome) + " Minutes");
         schedule.forEach((k, v) -> {
             System.out.println("Details: " + k + " " + v);
             System.out.println("  Time: " + v.stream().mapToDouble(t -> t.getWorkload() / k.getItemsPerMinute()).sum());
@@ -93,6 +245,49 @@ public class ResourcePlanningGA {
         });
     }
 
+    /**
+     * Creates a builder for the GA engine, preconfigured with the parameters used for computing schedules
+     *
+     * @param fitness The fitness function
+     *
+     * @return The engine builder
+     */
+    public Engine.Builder<IntegerGene, Double> engineBuilder(Function<Genotype<IntegerGene>, Double> fitness) {
+        /*
+         * create a genotype that maps resources to tasks
+         */
+        Genotype<IntegerGene> genotype = Genotype.of(
+                IntegerChromosome.of(0, resources.length - 1, tasks.length)
+        );
+        /*
+         *create the GA engine builder with the specified parameters
+         */
+        return Engine
+                .builder(fitness, genotype)
+                .populationSize(500)
+                .alterers(new SinglePointCrossover<>(1), new Mutator<>(0.01))
+                .selector(new RouletteWheelSelector<>());
+    }
+
+    /**
+     * Computes the best fitness any schedule can reach, i.e. every task runs on the resource minimizing its time and
+     * costs
+     *
+     * @return The best possible fitness
+     */
+    public double computeBestPossibleFitness() {
+        double fitness = 0d;
+        for (Task task : this.tasks) {
+            double best = Double.NEGATIVE_INFINITY;
+            for (Resource resource : this.resources) {
+                double time = task.getWorkload() / resource.getItemsPerMinute();
+                best = Math.max(best, - time - time * resource.getCostsPerMinute());
+            }
+            fitness += best;
+        }
+        return fitness;
+    }
+
     /**
      * Computes the fitness of an individual by subtracting needed time and costs from 0
      *
@@ -100,11 +295,57 @@ public class ResourcePlanningGA {
      *
      * @return The individuals fitness
      */
-    private Double fitness(final Genotype<IntegerGene> individual) {
+    public Double fitness(final Genotype<IntegerGene> individual) {
         Chromosome<IntegerGene> chromosome = individual.getChromosome();
         return - computeTime(chromosome) - computeCosts(chromosome);
     }
 
+    /**
+     * Computes the workload assigned to every resource, used as features of the surrogate model
+     *
+     * @param genotype The genotype to compute the loads for
+     *
+     * @return The workload by resource index
+     */
+    private double[] computeLoads(Genotype<IntegerGene> genotype) {
+        Chromosome<IntegerGene> chromosome = genotype.getChromosome();
+        double[] loads = new double[this.resources.length];
+        for (int i = 0; i < chromosome.length(); i++) {
+            loads[chromosome.getGene(i).getAllele()] += this.tasks[i].getWorkload();
+        }
+        return loads;
+    }
+
+    /**
+     * Returns the resource index of every task, used as features of the surrogate model
+     *
+     * @param genotype The genotype to return the alleles for
+     *
+     * @return The alleles
+     */
+    private double[] computeAlleles(Genotype<IntegerGene> genotype) {
+        Chromosome<IntegerGene> chromosome = genotype.getChromosome();
+        double[] alleles = new double[chromosome.length()];
+        for (int i = 0; i < chromosome.length(); i++) {
+            alleles[i] = chromosome.getGene(i).getAllele();
+        }
+        return alleles;
+    }
+
+    /**
+     * Computes time and costs of the schedule given by the alleles, used by the workers of the distributed evaluation
+     *
+     * @param alleles The resource index for every task
+     *
+     * @return The needed time and the produced costs
+     */
+    private double[] computeObjectives(int[] alleles) {
+        Chromosome<IntegerGene> chromosome = IntegerChromosome.of(IntStream.of(alleles)
+                .mapToObj(a -> IntegerGene.of(a, 0, this.resources.length - 1))
+                .toArray(IntegerGene[]::new));
+        return new double[]{computeTime(chromosome), computeCosts(chromosome)};
+    }
+
     /**
      * Compute the time needed to execute the schedule
      *